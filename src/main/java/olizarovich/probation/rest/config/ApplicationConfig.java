@@ -1,22 +1,41 @@
 package olizarovich.probation.rest.config;
 
 import olizarovich.probation.rest.interceptors.LogInterceptor;
+import olizarovich.probation.rest.models.ViewFields;
 import olizarovich.probation.rest.repositories.DocumentRepository;
 import olizarovich.probation.rest.repositories.PersonRepository;
 import olizarovich.probation.rest.repositories.RoleRepository;
+import olizarovich.probation.rest.repositories.implementation.CrudSoftDeleteRepositoryImplementation;
+import olizarovich.probation.rest.security.BoundedPasswordEncoder;
+import olizarovich.probation.rest.security.SignedTokenService;
+import olizarovich.probation.rest.security.UserDetailsCache;
 import olizarovich.probation.rest.services.DocumentService;
 import olizarovich.probation.rest.services.PersonService;
 import olizarovich.probation.rest.services.implementation.DocumentServiceImplementation;
 import olizarovich.probation.rest.services.implementation.PersonServiceImplementation;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
@@ -27,14 +46,22 @@ import springfox.documentation.builders.RequestHandlerSelectors;
 import springfox.documentation.spi.DocumentationType;
 import springfox.documentation.spring.web.plugins.Docket;
 
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+
 @EnableTransactionManagement
-@EnableJpaRepositories({"olizarovich.probation.rest.repositories"})
+@EnableJpaRepositories(value = {"olizarovich.probation.rest.repositories"},
+        repositoryBaseClass = CrudSoftDeleteRepositoryImplementation.class)
 @EntityScan("olizarovich.probation.rest.models")
 @ComponentScan({"olizarovich.probation.rest.controllers", "olizarovich.probation.rest.config"})
 @Configuration
 @SpringBootApplication
 @Import({SpringDataSourceConfig.class, SecurityConfiguration.class})
 public class ApplicationConfig implements WebMvcConfigurer {
+    private static Logger log = Logger.getLogger(ApplicationConfig.class);
+
     public static void main(String[] args) {
         SpringApplication.run(ApplicationConfig.class, args);
     }
@@ -42,8 +69,19 @@ public class ApplicationConfig implements WebMvcConfigurer {
     @Bean
     public PersonService personService(@Autowired PersonRepository personRepository,
                                        @Autowired RoleRepository mockRoleRepository,
-                                       @Autowired PasswordEncoder bCryptPasswordEncoder) {
-        return new PersonServiceImplementation(bCryptPasswordEncoder, mockRoleRepository, personRepository);
+                                       @Autowired PasswordEncoder bCryptPasswordEncoder,
+                                       @Autowired UserDetailsCache userDetailsCache) {
+        return new PersonServiceImplementation(bCryptPasswordEncoder, mockRoleRepository, personRepository,
+                userDetailsCache);
+    }
+
+    /**
+     * Cache of authentication data, size and time to live are set in application.properties
+     */
+    @Bean
+    public UserDetailsCache userDetailsCache(@Value("${security.user-cache.max-entries:10000}") long maxEntries,
+                                             @Value("${security.user-cache.time-to-live:10m}") Duration timeToLive) {
+        return new UserDetailsCache(maxEntries, timeToLive);
     }
 
     @Bean
@@ -51,9 +89,84 @@ public class ApplicationConfig implements WebMvcConfigurer {
         return new DocumentServiceImplementation(documentRepository);
     }
 
+    /**
+     * Creates service for signed tokens if security.token.enabled is true.
+     * Secret should be the same on all nodes, random secret is used if it is not set.
+     *
+     * @param secret     Base64 encoded key, at least 32 bytes
+     * @param timeToLive Time while token is valid
+     * @return Token service
+     */
+    @Bean
+    @ConditionalOnProperty(name = "security.token.enabled", havingValue = "true")
+    public SignedTokenService signedTokenService(@Value("${security.token.secret:}") String secret,
+                                                 @Value("${security.token.time-to-live:1h}") Duration timeToLive) {
+        byte[] key;
+
+        if (secret.isEmpty()) {
+            log.warn("security.token.secret is not set, tokens are signed with random key of this node");
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+        } else {
+            key = Base64.getDecoder().decode(secret);
+        }
+
+        return new SignedTokenService(key, timeToLive, Clock.systemUTC());
+    }
+
+    /**
+     * BCrypt encoder running on bounded hashing executor.
+     * Queue size, active threads and rejected tasks are published as password.hashing metrics.
+     *
+     * @param strength      BCrypt cost factor, from 4 to 31
+     * @param threads       Number of hashing threads, 0 for number of processors
+     * @param queueCapacity Maximum number of waiting hashing tasks
+     * @param timeout       Maximum time to wait for hashing
+     * @return Password encoder
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${security.bcrypt.strength:10}") int strength,
+                                           @Value("${security.bcrypt.threads:0}") int threads,
+                                           @Value("${security.bcrypt.queue-capacity:100}") int queueCapacity,
+                                           @Value("${security.bcrypt.timeout:10s}") Duration timeout,
+                                           ObjectProvider<MeterRegistry> meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength),
+                poolSize, queueCapacity, timeout);
+
+        meterRegistry.ifAvailable(registry -> {
+            new ExecutorServiceMetrics(encoder.getExecutor(), "password.hashing", Tags.empty()).bindTo(registry);
+            FunctionCounter.builder("password.hashing.rejected", encoder, BoundedPasswordEncoder::getRejectedCount)
+                    .description("Hashing tasks rejected because of full queue or timeout")
+                    .register(registry);
+        });
+
+        return encoder;
+    }
+
+    /**
+     * Views are written with sparse fieldset filter, all fields are written if response has no own filters
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer viewFieldsCustomizer() {
+        return builder -> builder.filters(ViewFields.all());
+    }
+
+    /**
+     * CBOR responses for Accept: application/cbor. Mapper is created by the same builder as JSON mapper,
+     * so dates, filters and field names are the same as in JSON
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Smile responses for Accept: application/x-jackson-smile, see cborHttpMessageConverter
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
     }
 
     @Bean
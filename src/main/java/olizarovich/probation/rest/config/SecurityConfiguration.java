@@ -3,23 +3,37 @@ package olizarovich.probation.rest.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import olizarovich.probation.rest.controllers.LoggingAccessDeniedHandler;
 import olizarovich.probation.rest.controllers.RestResponseEntityExceptionHandler;
+import olizarovich.probation.rest.exceptions.LoginAttemptsExceededException;
+import olizarovich.probation.rest.exceptions.PasswordHashingBusyException;
+import olizarovich.probation.rest.security.LoginThrottle;
+import olizarovich.probation.rest.security.PersonDetails;
+import olizarovich.probation.rest.security.SignedTokenService;
+import olizarovich.probation.rest.security.ThrottlingAuthenticationProvider;
+import olizarovich.probation.rest.security.TokenAuthenticationFilter;
 import olizarovich.probation.rest.services.PersonService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
 
 @Configuration
 @EnableWebSecurity
@@ -37,18 +51,47 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
     @Autowired
     private PersonService service;
 
+    /**
+     * Service for signed tokens. Null if stateless authentication is disabled
+     */
+    @Autowired(required = false)
+    private SignedTokenService tokenService;
+
+    /**
+     * Number of counters in every login throttle
+     */
+    @Value("${security.login-throttle.size:65536}")
+    private int throttleSize;
+
+    @Value("${security.login-throttle.username-attempts:10}")
+    private int usernameAttempts;
+
+    @Value("${security.login-throttle.address-attempts:100}")
+    private int addressAttempts;
+
+    /**
+     * Time after which number of attempts is halved
+     */
+    @Value("${security.login-throttle.half-life:1m}")
+    private Duration throttleHalfLife;
+
     @Override
     protected void configure(final HttpSecurity http) throws Exception {
         http
                 .csrf().disable()
                 .authorizeRequests()
                 .antMatchers(HttpMethod.POST, "/persons**").hasAnyAuthority("ROLE_ADMIN")
+                .antMatchers(HttpMethod.POST, "/persons/restore").hasAnyAuthority("ROLE_ADMIN")
                 .antMatchers(HttpMethod.PUT, "/persons**").hasAnyAuthority("ROLE_ADMIN")
                 .antMatchers(HttpMethod.DELETE, "/persons**").hasAnyAuthority("ROLE_ADMIN")
+                .antMatchers(HttpMethod.GET, "/persons/export").hasAnyAuthority("ROLE_ADMIN")
                 .antMatchers(HttpMethod.GET, "/persons**").permitAll()
                 .antMatchers(HttpMethod.POST, "/documents**").hasAnyAuthority("ROLE_ADMIN", "ROLE_USER")
+                .antMatchers(HttpMethod.POST, "/documents/restore").hasAnyAuthority("ROLE_ADMIN", "ROLE_USER")
                 .antMatchers(HttpMethod.PUT, "/documents**").hasAnyAuthority("ROLE_ADMIN", "ROLE_USER")
+                .antMatchers(HttpMethod.PATCH, "/documents**").hasAnyAuthority("ROLE_ADMIN", "ROLE_USER")
                 .antMatchers(HttpMethod.DELETE, "/documents**").hasAnyAuthority("ROLE_ADMIN", "ROLE_USER")
+                .antMatchers(HttpMethod.GET, "/documents/export").hasAnyAuthority("ROLE_ADMIN", "ROLE_USER")
                 .antMatchers(HttpMethod.GET, "/documents**").permitAll()
                 .anyRequest().authenticated()
                 .and()
@@ -66,6 +109,14 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
                 .and()
                 .exceptionHandling()
                 .accessDeniedHandler(accessDeniedHandler);
+
+        if (tokenService != null) {
+            http
+                    .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                    .and()
+                    .addFilterBefore(new TokenAuthenticationFilter(tokenService),
+                            UsernamePasswordAuthenticationFilter.class);
+        }
     }
 
     private void loginSuccessHandler(
@@ -74,6 +125,14 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
             Authentication authentication) throws IOException {
 
         response.setStatus(HttpStatus.OK.value());
+
+        if (tokenService != null && authentication.getPrincipal() instanceof PersonDetails) {
+            String token = tokenService.issue((PersonDetails) authentication.getPrincipal());
+            response.setHeader(HttpHeaders.AUTHORIZATION, TokenAuthenticationFilter.BEARER + token);
+            objectMapper.writeValue(response.getWriter(), token);
+            return;
+        }
+
         objectMapper.writeValue(response.getWriter(), "Logged in successful!");
     }
 
@@ -82,6 +141,18 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
             HttpServletResponse response,
             AuthenticationException e) throws IOException {
 
+        if (e instanceof LoginAttemptsExceededException) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            objectMapper.writeValue(response.getWriter(), e.getMessage());
+            return;
+        }
+
+        if (e instanceof PasswordHashingBusyException) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            objectMapper.writeValue(response.getWriter(), e.getMessage());
+            return;
+        }
+
         response.setStatus(HttpStatus.UNAUTHORIZED.value());
         objectMapper.writeValue(response.getWriter(), "Invalid data!");
     }
@@ -98,6 +169,16 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
     @Override
     public void configure(AuthenticationManagerBuilder builder)
             throws Exception {
-        builder.userDetailsService(service).passwordEncoder(passwordEncoder);
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(service);
+        provider.setPasswordEncoder(passwordEncoder);
+
+        LoginThrottle usernameThrottle = new LoginThrottle(throttleSize, usernameAttempts, throttleHalfLife,
+                Clock.systemUTC());
+        LoginThrottle addressThrottle = new LoginThrottle(throttleSize, addressAttempts, throttleHalfLife,
+                Clock.systemUTC());
+
+        builder.authenticationProvider(new ThrottlingAuthenticationProvider(provider, usernameThrottle,
+                addressThrottle));
     }
 }
@@ -1,32 +1,62 @@
 package olizarovich.probation.rest.config;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.core.env.Environment;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 
 import javax.sql.DataSource;
 
 /**
  * It is the only way to connect to postgresql.
  * All other way cannot connect due to authorization error
+ *
+ * Connections are kept in HikariCP pool. Pool metrics are published
+ * to micrometer registry (hikaricp.connections.*) by actuator.
  */
 @Configuration
 @PropertySource({"classpath:application.properties"})
 public class SpringDataSourceConfig {
+    /**
+     * Prefix of pool settings in application.properties
+     */
+    private static final String POOL_PREFIX = "spring.datasource.hikari.";
+
+    /**
+     * Jdbc driver settings in application.properties, every entry is passed to the driver,
+     * e.g. prepared statements cache and reWriteBatchedInserts of PostgreSQL
+     */
+    private static final String DRIVER_PROPERTIES = POOL_PREFIX + "data-source-properties";
+
     @Autowired
     private Environment environment;
 
-    @Bean
+    @Bean(destroyMethod = "close")
     public DataSource postgresqlDataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName(environment.getProperty("spring.datasource.driver-class-name"));
-        dataSource.setUrl(environment.getProperty("spring.datasource.url"));
-        dataSource.setUsername(environment.getProperty("spring.datasource.user"));
-        dataSource.setPassword(environment.getProperty("spring.datasource.password"));
+        HikariConfig config = new HikariConfig();
+        String driverClassName = environment.getProperty("spring.datasource.driver-class-name");
+        if (driverClassName != null) {
+            config.setDriverClassName(driverClassName);
+        }
+        config.setJdbcUrl(environment.getProperty("spring.datasource.url"));
+        config.setUsername(environment.getProperty("spring.datasource.user"));
+        config.setPassword(environment.getProperty("spring.datasource.password"));
+
+        config.setPoolName(environment.getProperty(POOL_PREFIX + "pool-name", "DocumentPool"));
+        config.setMaximumPoolSize(environment.getProperty(POOL_PREFIX + "maximum-pool-size", Integer.class, 10));
+        config.setMinimumIdle(environment.getProperty(POOL_PREFIX + "minimum-idle", Integer.class, 10));
+        config.setConnectionTimeout(environment.getProperty(POOL_PREFIX + "connection-timeout", Long.class, 30000L));
+        config.setMaxLifetime(environment.getProperty(POOL_PREFIX + "max-lifetime", Long.class, 1800000L));
+
+        Binder.get(environment)
+                .bind(DRIVER_PROPERTIES, Bindable.mapOf(String.class, String.class))
+                .ifBound(properties -> properties.forEach(config::addDataSourceProperty));
 
-        return dataSource;
+        return new HikariDataSource(config);
     }
 }
@@ -1,21 +1,30 @@
 package olizarovich.probation.rest.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.annotations.*;
 import olizarovich.probation.rest.exceptions.DocumentNotFoundException;
 import olizarovich.probation.rest.exceptions.IllegalSortTypeException;
+import olizarovich.probation.rest.models.BatchResult;
 import olizarovich.probation.rest.models.Document;
+import olizarovich.probation.rest.models.DocumentView;
+import olizarovich.probation.rest.models.ViewFields;
+import olizarovich.probation.rest.queries.CursorPage;
+import olizarovich.probation.rest.queries.DocumentQuery;
 import olizarovich.probation.rest.services.DocumentService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/documents")
@@ -24,63 +33,34 @@ public class DocumentController {
     @Autowired
     private DocumentService service;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @ApiOperation(value = "View a list of documents", response = List.class)
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Successfully retrieved list"),
             @ApiResponse(code = 400, message = "Incorrect parameter or parameters"),
     })
-    @GetMapping(value = "",  produces = "application/json")
-    List<Document> all(@RequestParam(defaultValue = "") String title,
-                       @RequestParam(defaultValue = "") String status,
-
-                       @RequestParam() @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
-                       @ApiParam(value = "Date of document creation") Optional<LocalDate> creationDate,
-
-                       @RequestParam(defaultValue = "") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
-                       @ApiParam(value = "Document created before giving date") Optional<LocalDate> creationDateBefore,
-
-                       @RequestParam(defaultValue = "") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
-                       @ApiParam(value = "Document created after giving date") Optional<LocalDate> creationDateAfter,
-
-                       @RequestParam() @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
-                       @ApiParam(value = "before giving date") Optional<LocalDate> executionPeriod,
-
-                       @RequestParam(defaultValue = "") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
-                       @ApiParam(value = "Document execution before giving date") Optional<LocalDate> executionPeriodBefore,
-
-                       @RequestParam(defaultValue = "") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
-                       @ApiParam(value = "Document execution after giving date") Optional<LocalDate> executionPeriodAfter,
-
-                       @RequestParam(defaultValue = "-1") int customerId,
-                       @RequestParam(defaultValue = "") String customerLastName,
-
-                       @RequestParam(defaultValue = "-1") int executorId,
-                       @RequestParam(defaultValue = "") String executorLastName,
-
-                       @RequestParam(defaultValue = "") @ApiParam(value = "Setting sort order") String sort,
-                       @RequestParam(defaultValue = "-1") int page,
-                       @RequestParam(defaultValue = "10") int count,
-                       Authentication authentication)
+    @GetMapping(value = "",  produces = {"application/json", "application/cbor", "application/x-jackson-smile"})
+    ResponseEntity<MappingJacksonValue> all(DocumentFilter filter,
+                                            @RequestParam(defaultValue = "") @ApiParam(value = "Setting sort order") String sort,
+                                            @RequestParam(defaultValue = "-1") int page,
+                                            @RequestParam(defaultValue = "10") int count,
+                                            @RequestParam(required = false)
+                                            @ApiParam(value = "Cursor to the next page from X-Next-Cursor header") String cursor,
+                                            @RequestParam(defaultValue = "false")
+                                            @ApiParam(value = "Count all matching entities into X-Total-Count header") boolean total,
+                                            @RequestParam(required = false)
+                                            @ApiParam(value = "Comma separated fields to return, all fields by default") String fields,
+                                            Authentication authentication)
     {
-        List<Document> documents = new ArrayList<>();
-
-        service.filterByTitle(title).filterByStatus(status);
-
-        creationDate.ifPresent(d -> service.filterByCreationDate(d));
-        creationDateBefore.ifPresent(d -> service.filterByCreationDateLessThan(d));
-        creationDateAfter.ifPresent(d -> service.filterByCreationDateMoreThan(d));
-
-        executionPeriod.ifPresent(d -> service.filterByExecutionDate(d));
-        executionPeriodBefore.ifPresent(d -> service.filterByExecutionDateLessThan(d));
-        executionPeriodAfter.ifPresent(d -> service.filterByExecutionDateMoreThan(d));
-
-        service.filterByCustomerId(customerId).filterByCustomerLastName(customerLastName);
-        service.filterByExecutorId(executorId).filterByExecutorLastName(executorLastName);
+        Set<String> selected = ViewFields.parse(fields, DocumentView.FIELDS);
+        DocumentQuery.Builder query = filter.toQuery();
 
         if (!sort.isEmpty()) {
             try {
-                DocumentService.DocumentSort personSort = DocumentService.DocumentSort.valueOf(sort);
-                service.setSort(personSort);
+                DocumentService.DocumentSort documentSort = DocumentService.DocumentSort.valueOf(sort);
+                query.setSort(documentSort);
             }
             catch (IllegalArgumentException ex) {
                 throw new IllegalSortTypeException(sort);
@@ -91,18 +71,125 @@ public class DocumentController {
          * If user is admin, then load all documents
          */
         if (isUserHasRole(authentication, "ADMIN_ROLE")) {
-            service.includeDeleted();
+            query.includeDeleted();
         }
 
-        if (page < 0) {
-            service.setPage(page, count);
+        /*
+         * Page number is kept for old clients, by default page is selected by cursor
+         */
+        if (page >= 0) {
+            query.setPage(page, count);
+        } else {
+            query.setCursor(cursor, count);
+        }
+
+        /*
+         * Documents are read as projections, customer and executor are written as summaries.
+         * Only requested fields are selected, customer and executor are joined only if requested
+         */
+        DocumentQuery search = query.build();
+        CursorPage<DocumentView> result = service.findViewPage(search, selected);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (result.hasNext()) {
+            response.header(CursorPage.NEXT_HEADER, result.getNext());
+        }
+
+        /*
+         * Counting is expensive, so it is done only on request
+         */
+        if (total) {
+            response.header(CursorPage.TOTAL_HEADER, String.valueOf(service.count(search)));
+        }
+
+        return response.body(filtered(result.getContent(), selected));
+    }
+
+    @ApiOperation(value = "Stream all documents matching filter without paging", response = List.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved list"),
+            @ApiResponse(code = 400, message = "Incorrect parameter or parameters"),
+    })
+    @GetMapping(value = "", params = "stream=true", produces = "application/json")
+    ResponseEntity<StreamingResponseBody> stream(DocumentFilter filter,
+                                                 @RequestParam(defaultValue = "") @ApiParam(value = "Setting sort order") String sort,
+                                                 Authentication authentication)
+    {
+        /*
+         * Documents are written while they are read from database cursor, so response has no total size
+         */
+        DocumentQuery search = unpagedQuery(filter, sort, authentication);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new JsonArrayResponseBody<Document>(objectMapper, action -> service.forEach(search, action)));
+    }
+
+    @ApiOperation(value = "Export all documents matching filter into gzip compressed CSV or NDJSON")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully exported"),
+            @ApiResponse(code = 400, message = "Incorrect parameter or parameters"),
+            @ApiResponse(code = 401, message = "You are not authorized"),
+    })
+    @GetMapping("/export")
+    ResponseEntity<StreamingResponseBody> export(DocumentFilter filter,
+                                                 @RequestParam(defaultValue = "csv")
+                                                 @ApiParam(value = "Export format: csv or ndjson") String format,
+                                                 @RequestParam(defaultValue = "") @ApiParam(value = "Setting sort order") String sort,
+                                                 Authentication authentication)
+    {
+        ExportResponseBody.Format exportFormat = ExportResponseBody.Format.of(format);
+        DocumentQuery search = unpagedQuery(filter, sort, authentication);
+
+        return ResponseEntity.ok()
+                .contentType(ExportResponseBody.MEDIA_TYPE)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + exportFormat.getFileName("documents") + "\"")
+                .body(new ExportResponseBody(exportFormat, service.getExportFields(), objectMapper.getFactory(),
+                        action -> service.export(search, action)));
+    }
+
+    @ApiOperation(value = "Change status of all not deleted documents matching filter, at least one filter is required",
+            response = Integer.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Number of updated documents"),
+            @ApiResponse(code = 400, message = "Incorrect parameter or parameters"),
+            @ApiResponse(code = 401, message = "You are not authorized"),
+    })
+    @PatchMapping("")
+    @ResponseStatus(HttpStatus.OK)
+    int updateAll(DocumentFilter filter,
+                  @RequestBody @ApiParam(value = "Document with new status, other fields should be empty") Document changes)
+    {
+        if (changes.getId() != null || changes.getTitle() != null || changes.getCreationDate() != null
+                || changes.getExecutionPeriod() != null || changes.getCustomer() != null
+                || changes.getExecutor() != null) {
+            throw new IllegalArgumentException("Only status can be changed for all matching documents");
         }
 
-        service.findAll().forEach(documents::add);
+        return service.updateStatus(filter.toQuery().build(), changes.getStatus());
+    }
 
-        service.clearFilter();
+    @ApiOperation(value = "Full text search of documents ordered by relevance", response = List.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved list"),
+            @ApiResponse(code = 400, message = "Incorrect parameter or parameters"),
+            @ApiResponse(code = 401, message = "You are not authorized"),
+    })
+    @GetMapping(value = "/search", produces = {"application/json", "application/cbor", "application/x-jackson-smile"})
+    ResponseEntity<List<Document>> search(@RequestParam
+                                          @ApiParam(value = "Words to search in title, status, customer and executor names") String q,
+                                          @RequestParam(required = false)
+                                          @ApiParam(value = "Cursor to the next page from X-Next-Cursor header") String cursor,
+                                          @RequestParam(defaultValue = "10") int count)
+    {
+        CursorPage<Document> result = service.search(q, cursor, count);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (result.hasNext()) {
+            response.header(CursorPage.NEXT_HEADER, result.getNext());
+        }
 
-        return documents;
+        return response.body(result.getContent());
     }
 
     @ApiOperation(value = "Add new document to database", response = Document.class)
@@ -117,6 +204,18 @@ public class DocumentController {
         return service.save(document);
     }
 
+    @ApiOperation(value = "Add list of new documents to database", response = List.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Result for every document: id of saved document or error"),
+            @ApiResponse(code = 400, message = "Empty or too large batch"),
+            @ApiResponse(code = 401, message = "You are not authorized"),
+    })
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.OK)
+    List<BatchResult> newDocuments(@RequestBody List<Document> documents) {
+        return service.saveBatch(documents);
+    }
+
     @ApiOperation(value = "Searching for Document with giving ID", response = Document.class)
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Successfully retrieved document"),
@@ -125,15 +224,31 @@ public class DocumentController {
     })
     @GetMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
-    Document findById(@PathVariable Integer id) {
+    MappingJacksonValue findById(@PathVariable Integer id,
+                                 @RequestParam(required = false)
+                                 @ApiParam(value = "Comma separated fields to return, all fields by default") String fields) {
+        Set<String> selected = ViewFields.parse(fields, DocumentView.FIELDS);
 
-        Optional<Document> person = service.findById(id);
+        /*
+         * Without fields the whole document is returned as before
+         */
+        if (selected.isEmpty()) {
+            Optional<Document> person = service.findById(id);
+
+            if(!person.isPresent()) {
+                throw new DocumentNotFoundException(id);
+            }
 
-        if(!person.isPresent()) {
+            return new MappingJacksonValue(person.get());
+        }
+
+        Optional<DocumentView> view = service.findViewById(id, selected);
+
+        if (!view.isPresent()) {
             throw new DocumentNotFoundException(id);
         }
 
-        return person.get();
+        return filtered(view.get(), selected);
     }
 
     @ApiOperation(value = "Update document with giving ID", response = Document.class)
@@ -161,6 +276,61 @@ public class DocumentController {
         service.deleteById(id);
     }
 
+    @ApiOperation(value = "Deleted documents with giving IDs", response = Integer.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Number of deleted documents"),
+            @ApiResponse(code = 400, message = "Ids are not set"),
+            @ApiResponse(code = 401, message = "You are not authorized"),
+    })
+    @DeleteMapping("")
+    @ResponseStatus(HttpStatus.OK)
+    int deleteDocuments(@RequestParam @ApiParam(value = "Ids of documents to delete") List<Integer> ids) {
+        return service.deleteAllById(ids);
+    }
+
+    @ApiOperation(value = "Restore deleted documents with giving IDs", response = Integer.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Number of restored documents"),
+            @ApiResponse(code = 400, message = "Ids are not set"),
+            @ApiResponse(code = 401, message = "You are not authorized"),
+    })
+    @PostMapping("/restore")
+    @ResponseStatus(HttpStatus.OK)
+    int restoreDocuments(@RequestParam @ApiParam(value = "Ids of documents to restore") List<Integer> ids) {
+        return service.restoreAllById(ids);
+    }
+
+    /**
+     * Creates query without page for streaming and export. Admin also gets deleted documents
+     */
+    private DocumentQuery unpagedQuery(DocumentFilter filter, String sort, Authentication authentication) {
+        DocumentQuery.Builder query = filter.toQuery();
+
+        if (!sort.isEmpty()) {
+            try {
+                query.setSort(DocumentService.DocumentSort.valueOf(sort));
+            }
+            catch (IllegalArgumentException ex) {
+                throw new IllegalSortTypeException(sort);
+            }
+        }
+
+        if (isUserHasRole(authentication, "ADMIN_ROLE")) {
+            query.includeDeleted();
+        }
+
+        return query.build();
+    }
+
+    /**
+     * Wraps views into response writing only selected fields
+     */
+    private MappingJacksonValue filtered(Object value, Set<String> fields) {
+        MappingJacksonValue result = new MappingJacksonValue(value);
+        result.setFilters(ViewFields.only(fields));
+        return result;
+    }
+
     private boolean isUserHasRole(Authentication authentication, String role) {
         boolean hasRole = false;
         try {
@@ -0,0 +1,228 @@
+package olizarovich.probation.rest.controllers;
+
+import io.swagger.annotations.ApiParam;
+import olizarovich.probation.rest.queries.DocumentQuery;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Filter parameters of document requests. Bound from query parameters,
+ * so listing and bulk update of documents accept the same filter.
+ */
+public class DocumentFilter {
+    private String title = "";
+
+    private String status = "";
+
+    @ApiParam(value = "Document has any of giving statuses")
+    private List<String> statuses;
+
+    @ApiParam(value = "Document has none of giving statuses")
+    private List<String> excludedStatuses;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    @ApiParam(value = "Date of document creation")
+    private LocalDate creationDate;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    @ApiParam(value = "Document created before giving date")
+    private LocalDate creationDateBefore;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    @ApiParam(value = "Document created after giving date")
+    private LocalDate creationDateAfter;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    @ApiParam(value = "before giving date")
+    private LocalDate executionPeriod;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    @ApiParam(value = "Document execution before giving date")
+    private LocalDate executionPeriodBefore;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    @ApiParam(value = "Document execution after giving date")
+    private LocalDate executionPeriodAfter;
+
+    private int customerId = -1;
+
+    private String customerLastName = "";
+
+    private int executorId = -1;
+
+    private String executorLastName = "";
+
+    @ApiParam(value = "Customer is any of giving persons")
+    private List<Integer> customerIds;
+
+    @ApiParam(value = "Executor is any of giving persons")
+    private List<Integer> executorIds;
+
+    @ApiParam(value = "Customer or executor is any of giving persons")
+    private List<Integer> personIds;
+
+    /**
+     * Creates query builder with all set filters
+     *
+     * @return Builder for further settings
+     */
+    public DocumentQuery.Builder toQuery() {
+        DocumentQuery.Builder query = DocumentQuery.builder()
+                .filterByTitle(title)
+                .filterByStatus(status)
+                .filterByStatusIn(statuses)
+                .filterByStatusNotIn(excludedStatuses);
+
+        query.filterByCreationDate(creationDate)
+                .filterByCreationDateLessThan(creationDateBefore)
+                .filterByCreationDateMoreThan(creationDateAfter);
+
+        query.filterByExecutionDate(executionPeriod)
+                .filterByExecutionDateLessThan(executionPeriodBefore)
+                .filterByExecutionDateMoreThan(executionPeriodAfter);
+
+        query.filterByCustomerId(customerId).filterByCustomerLastName(customerLastName);
+        query.filterByExecutorId(executorId).filterByExecutorLastName(executorLastName);
+        query.filterByCustomerIdIn(customerIds).filterByExecutorIdIn(executorIds).filterByPersonIdIn(personIds);
+
+        return query;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public List<String> getStatuses() {
+        return statuses;
+    }
+
+    public void setStatuses(List<String> statuses) {
+        this.statuses = statuses;
+    }
+
+    public List<String> getExcludedStatuses() {
+        return excludedStatuses;
+    }
+
+    public void setExcludedStatuses(List<String> excludedStatuses) {
+        this.excludedStatuses = excludedStatuses;
+    }
+
+    public LocalDate getCreationDate() {
+        return creationDate;
+    }
+
+    public void setCreationDate(LocalDate creationDate) {
+        this.creationDate = creationDate;
+    }
+
+    public LocalDate getCreationDateBefore() {
+        return creationDateBefore;
+    }
+
+    public void setCreationDateBefore(LocalDate creationDateBefore) {
+        this.creationDateBefore = creationDateBefore;
+    }
+
+    public LocalDate getCreationDateAfter() {
+        return creationDateAfter;
+    }
+
+    public void setCreationDateAfter(LocalDate creationDateAfter) {
+        this.creationDateAfter = creationDateAfter;
+    }
+
+    public LocalDate getExecutionPeriod() {
+        return executionPeriod;
+    }
+
+    public void setExecutionPeriod(LocalDate executionPeriod) {
+        this.executionPeriod = executionPeriod;
+    }
+
+    public LocalDate getExecutionPeriodBefore() {
+        return executionPeriodBefore;
+    }
+
+    public void setExecutionPeriodBefore(LocalDate executionPeriodBefore) {
+        this.executionPeriodBefore = executionPeriodBefore;
+    }
+
+    public LocalDate getExecutionPeriodAfter() {
+        return executionPeriodAfter;
+    }
+
+    public void setExecutionPeriodAfter(LocalDate executionPeriodAfter) {
+        this.executionPeriodAfter = executionPeriodAfter;
+    }
+
+    public int getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(int customerId) {
+        this.customerId = customerId;
+    }
+
+    public String getCustomerLastName() {
+        return customerLastName;
+    }
+
+    public void setCustomerLastName(String customerLastName) {
+        this.customerLastName = customerLastName;
+    }
+
+    public int getExecutorId() {
+        return executorId;
+    }
+
+    public void setExecutorId(int executorId) {
+        this.executorId = executorId;
+    }
+
+    public String getExecutorLastName() {
+        return executorLastName;
+    }
+
+    public void setExecutorLastName(String executorLastName) {
+        this.executorLastName = executorLastName;
+    }
+
+    public List<Integer> getCustomerIds() {
+        return customerIds;
+    }
+
+    public void setCustomerIds(List<Integer> customerIds) {
+        this.customerIds = customerIds;
+    }
+
+    public List<Integer> getExecutorIds() {
+        return executorIds;
+    }
+
+    public void setExecutorIds(List<Integer> executorIds) {
+        this.executorIds = executorIds;
+    }
+
+    public List<Integer> getPersonIds() {
+        return personIds;
+    }
+
+    public void setPersonIds(List<Integer> personIds) {
+        this.personIds = personIds;
+    }
+}
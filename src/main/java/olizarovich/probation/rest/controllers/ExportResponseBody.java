@@ -0,0 +1,219 @@
+package olizarovich.probation.rest.controllers;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes rows of export into response as gzip compressed CSV or newline delimited JSON.
+ * Rows are written while they are read from database cursor, nothing is kept between rows.
+ * Response is a gzip file, so it should be sent as {@link #MEDIA_TYPE} with file name of format.
+ */
+public class ExportResponseBody implements StreamingResponseBody {
+    /**
+     * Media type of response. Body is always compressed, so it is not sent as "Content-Encoding: gzip"
+     */
+    public static final MediaType MEDIA_TYPE = new MediaType("application", "gzip");
+
+    private static final int bufferSize = 64 * 1024;
+
+    private final Format format;
+
+    private final String[] columns;
+
+    private final JsonFactory jsonFactory;
+
+    private final JsonArrayResponseBody.Source<Object[]> source;
+
+    /**
+     * @param format      Output format
+     * @param fields      Exported field paths, nested fields are separated by dot
+     * @param jsonFactory Factory for newline delimited JSON
+     * @param source      Passes every row to consumer, values are in order of fields
+     */
+    public ExportResponseBody(Format format, List<String> fields, JsonFactory jsonFactory,
+                              JsonArrayResponseBody.Source<Object[]> source) {
+        this.format = format;
+        this.columns = fields.stream().map(ExportResponseBody::columnName).toArray(String[]::new);
+        this.jsonFactory = jsonFactory;
+        this.source = source;
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(outputStream, bufferSize);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), bufferSize);
+
+        try {
+            if (format == Format.CSV) {
+                writeCsv(writer);
+            } else {
+                writeJson(writer);
+            }
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+
+        writer.flush();
+        gzip.finish();
+    }
+
+    private void writeCsv(Writer writer) throws IOException {
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(columns[i]);
+        }
+        writer.write("\r\n");
+
+        source.forEach(row -> {
+            try {
+                for (int i = 0; i < row.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    if (row[i] != null) {
+                        writeCsvValue(writer, row[i].toString());
+                    }
+                }
+                writer.write("\r\n");
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    private void writeJson(Writer writer) throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+            generator.setRootValueSeparator(null);
+
+            source.forEach(row -> {
+                try {
+                    generator.writeStartObject();
+                    for (int i = 0; i < row.length; i++) {
+                        generator.writeFieldName(columns[i]);
+                        writeJsonValue(generator, row[i]);
+                    }
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        }
+    }
+
+    /**
+     * Quotes value only if it contains separator, quote or line break, quotes inside are doubled
+     */
+    private static void writeCsvValue(Writer writer, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    private static void writeJsonValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof Integer) {
+            generator.writeNumber((Integer) value);
+        } else if (value instanceof Long) {
+            generator.writeNumber((Long) value);
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+
+    /**
+     * Converts field path into column name, e.g. "customer.id" into "customerId"
+     */
+    private static String columnName(String field) {
+        StringBuilder name = new StringBuilder(field.length());
+        boolean upper = false;
+
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '.') {
+                upper = true;
+            } else {
+                name.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+
+        return name.toString();
+    }
+
+    /**
+     * Supported export formats
+     */
+    public enum Format {
+        CSV("csv"),
+        NDJSON("ndjson");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        /**
+         * @param value Format name in any case
+         * @return Format
+         * @throws IllegalArgumentException if format is not supported
+         */
+        public static Format of(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Unsupported export format: " + value);
+            }
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * @param name File name without extension
+         * @return Name of compressed file, e.g. "documents.csv.gz"
+         */
+        public String getFileName(String name) {
+            return name + "." + extension + ".gz";
+        }
+    }
+}
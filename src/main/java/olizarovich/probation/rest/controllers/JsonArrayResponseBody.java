@@ -0,0 +1,79 @@
+package olizarovich.probation.rest.controllers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes rows into response as JSON array while they are read from database.
+ * Every row is serialized as soon as it arrives, so whole list is never kept in memory.
+ * Output is flushed after every flushSize rows, not after every row.
+ *
+ * @param <T> Row type
+ */
+public class JsonArrayResponseBody<T> implements StreamingResponseBody {
+    /**
+     * Number of rows written between flushes of response
+     */
+    private static final int flushSize = 500;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectWriter writer;
+
+    private final Source<T> source;
+
+    /**
+     * @param objectMapper Mapper of application, so rows look like in other responses
+     * @param source       Passes every row to consumer, called once in response thread
+     */
+    public JsonArrayResponseBody(ObjectMapper objectMapper, Source<T> source) {
+        this.objectMapper = objectMapper;
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.source = source;
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+
+            int[] written = {0};
+            try {
+                source.forEach(row -> {
+                    try {
+                        writer.writeValue(generator, row);
+
+                        if (++written[0] % flushSize == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Source of rows, usually service method reading through database cursor
+     *
+     * @param <T> Row type
+     */
+    @FunctionalInterface
+    public interface Source<T> {
+        void forEach(Consumer<? super T> action);
+    }
+}
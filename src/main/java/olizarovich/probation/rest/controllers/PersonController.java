@@ -1,21 +1,29 @@
 package olizarovich.probation.rest.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.annotations.*;
 import olizarovich.probation.rest.exceptions.IllegalSortTypeException;
 import olizarovich.probation.rest.exceptions.PersonNotFoundException;
 import olizarovich.probation.rest.models.Person;
+import olizarovich.probation.rest.models.PersonView;
+import olizarovich.probation.rest.models.ViewFields;
+import olizarovich.probation.rest.queries.CursorPage;
+import olizarovich.probation.rest.queries.PersonQuery;
 import olizarovich.probation.rest.services.PersonService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/persons")
@@ -24,42 +32,34 @@ public class PersonController {
     @Autowired
     private PersonService service;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @ApiOperation(value = "View a list of persons", response = List.class)
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Successfully retrieved list"),
             @ApiResponse(code = 400, message = "Incorrect parameter or parameters"),
     })
 
-    @GetMapping(value = "", produces = "application/json")
-    List<Person> all(@RequestParam(defaultValue = "") String firstName,
-                     @RequestParam(defaultValue = "") String lastName,
-
-                     @RequestParam() @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
-                     @ApiParam(value = "Date of person birthday") Optional<LocalDate> birthDate,
-
-                     @RequestParam(defaultValue = "") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
-                     @ApiParam(value = "Search for person with birthday before giving date")
-                             Optional<LocalDate> birthDateBefore,
-
-                     @RequestParam(defaultValue = "") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
-                     @ApiParam(value = "Search for person with birthday after giving date")
-                             Optional<LocalDate> birthDateAfter,
-
-                     @RequestParam(defaultValue = "") @ApiParam(value = "Setting sort order") String sort,
-                     @RequestParam(defaultValue = "-1") int page,
-                     @RequestParam(defaultValue = "10") int count,
-                     Authentication authentication) {
-        List<Person> persons = new ArrayList<>();
-
-        service.filterByFirstName(firstName).filterByLastName(lastName);
-        birthDate.ifPresent(d -> service.filterByBirthDate(d));
-        birthDateBefore.ifPresent(d -> service.filterByBirthDateLessThan(d));
-        birthDateAfter.ifPresent(d -> service.filterByBirthDateMoreThan(d));
+    @GetMapping(value = "", produces = {"application/json", "application/cbor", "application/x-jackson-smile"})
+    ResponseEntity<MappingJacksonValue> all(PersonFilter filter,
+                                            @RequestParam(defaultValue = "") @ApiParam(value = "Setting sort order") String sort,
+                                            @RequestParam(defaultValue = "-1") int page,
+                                            @RequestParam(defaultValue = "10") int count,
+                                            @RequestParam(required = false)
+                                            @ApiParam(value = "Cursor to the next page from X-Next-Cursor header") String cursor,
+                                            @RequestParam(defaultValue = "false")
+                                            @ApiParam(value = "Count all matching entities into X-Total-Count header") boolean total,
+                                            @RequestParam(required = false)
+                                            @ApiParam(value = "Comma separated fields to return, all fields by default") String fields,
+                                            Authentication authentication) {
+        Set<String> selected = ViewFields.parse(fields, PersonView.FIELDS);
+        PersonQuery.Builder query = filter.toQuery();
 
         if (!sort.isEmpty()) {
             try {
                 PersonService.PersonSort personSort = PersonService.PersonSort.valueOf(sort);
-                service.setSort(personSort);
+                query.setSort(personSort);
             } catch (IllegalArgumentException ex) {
                 throw new IllegalSortTypeException(sort);
             }
@@ -69,18 +69,79 @@ public class PersonController {
          * If user is admin, then load all users
          */
         if (isUserHasRole(authentication, "ADMIN_ROLE")) {
-            service.includeDeleted();
+            query.includeDeleted();
         }
 
-        if (page < 0) {
-            service.setPage(page, count);
+        /*
+         * Page number is kept for old clients, by default page is selected by cursor
+         */
+        if (page >= 0) {
+            query.setPage(page, count);
+        } else {
+            query.setCursor(cursor, count);
         }
 
-        service.findAll().forEach(persons::add);
+        /*
+         * Persons are read as projections without password and soft delete flag.
+         * Only requested fields are selected, roles are loaded only if requested
+         */
+        PersonQuery search = query.build();
+        CursorPage<PersonView> result = service.findViewPage(search, selected);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (result.hasNext()) {
+            response.header(CursorPage.NEXT_HEADER, result.getNext());
+        }
 
-        service.clearFilter();
+        /*
+         * Counting is expensive, so it is done only on request
+         */
+        if (total) {
+            response.header(CursorPage.TOTAL_HEADER, String.valueOf(service.count(search)));
+        }
 
-        return persons;
+        return response.body(filtered(result.getContent(), selected));
+    }
+
+    @ApiOperation(value = "Stream all persons matching filter without paging", response = List.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved list"),
+            @ApiResponse(code = 400, message = "Incorrect parameter or parameters"),
+    })
+    @GetMapping(value = "", params = "stream=true", produces = "application/json")
+    ResponseEntity<StreamingResponseBody> stream(PersonFilter filter,
+                                                 @RequestParam(defaultValue = "") @ApiParam(value = "Setting sort order") String sort,
+                                                 Authentication authentication) {
+        /*
+         * Persons are written while they are read from database cursor, so response has no total size
+         */
+        PersonQuery search = unpagedQuery(filter, sort, authentication);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new JsonArrayResponseBody<Person>(objectMapper, action -> service.forEach(search, action)));
+    }
+
+    @ApiOperation(value = "Export all persons matching filter into gzip compressed CSV or NDJSON")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully exported"),
+            @ApiResponse(code = 400, message = "Incorrect parameter or parameters"),
+            @ApiResponse(code = 401, message = "You are not authorized"),
+    })
+    @GetMapping("/export")
+    ResponseEntity<StreamingResponseBody> export(PersonFilter filter,
+                                                 @RequestParam(defaultValue = "csv")
+                                                 @ApiParam(value = "Export format: csv or ndjson") String format,
+                                                 @RequestParam(defaultValue = "") @ApiParam(value = "Setting sort order") String sort,
+                                                 Authentication authentication) {
+        ExportResponseBody.Format exportFormat = ExportResponseBody.Format.of(format);
+        PersonQuery search = unpagedQuery(filter, sort, authentication);
+
+        return ResponseEntity.ok()
+                .contentType(ExportResponseBody.MEDIA_TYPE)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + exportFormat.getFileName("persons") + "\"")
+                .body(new ExportResponseBody(exportFormat, service.getExportFields(), objectMapper.getFactory(),
+                        action -> service.export(search, action)));
     }
 
     @ApiOperation(value = "Add new person to database", response = Person.class)
@@ -103,15 +164,31 @@ public class PersonController {
     })
     @GetMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
-    Person findById(@PathVariable Integer id) {
+    MappingJacksonValue findById(@PathVariable Integer id,
+                                 @RequestParam(required = false)
+                                 @ApiParam(value = "Comma separated fields to return, all fields by default") String fields) {
+        Set<String> selected = ViewFields.parse(fields, PersonView.FIELDS);
 
-        Optional<Person> person = service.findById(id);
+        /*
+         * Without fields the whole person is returned as before
+         */
+        if (selected.isEmpty()) {
+            Optional<Person> person = service.findById(id);
 
-        if (!person.isPresent()) {
+            if (!person.isPresent()) {
+                throw new PersonNotFoundException(id);
+            }
+
+            return new MappingJacksonValue(person.get());
+        }
+
+        Optional<PersonView> view = service.findViewById(id, selected);
+
+        if (!view.isPresent()) {
             throw new PersonNotFoundException(id);
         }
 
-        return person.get();
+        return filtered(view.get(), selected);
     }
 
     @ApiOperation(value = "Update person with giving ID", response = Person.class)
@@ -139,6 +216,60 @@ public class PersonController {
         service.deleteById(id);
     }
 
+    @ApiOperation(value = "Deleted persons with giving IDs", response = Integer.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Number of deleted persons"),
+            @ApiResponse(code = 400, message = "Ids are not set"),
+            @ApiResponse(code = 401, message = "You are not authorized"),
+    })
+    @DeleteMapping("")
+    @ResponseStatus(HttpStatus.OK)
+    int deletePersons(@RequestParam @ApiParam(value = "Ids of persons to delete") List<Integer> ids) {
+        return service.deleteAllById(ids);
+    }
+
+    @ApiOperation(value = "Restore deleted persons with giving IDs", response = Integer.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Number of restored persons"),
+            @ApiResponse(code = 400, message = "Ids are not set"),
+            @ApiResponse(code = 401, message = "You are not authorized"),
+    })
+    @PostMapping("/restore")
+    @ResponseStatus(HttpStatus.OK)
+    int restorePersons(@RequestParam @ApiParam(value = "Ids of persons to restore") List<Integer> ids) {
+        return service.restoreAllById(ids);
+    }
+
+    /**
+     * Creates query without page for streaming and export. Admin also gets deleted persons
+     */
+    private PersonQuery unpagedQuery(PersonFilter filter, String sort, Authentication authentication) {
+        PersonQuery.Builder query = filter.toQuery();
+
+        if (!sort.isEmpty()) {
+            try {
+                query.setSort(PersonService.PersonSort.valueOf(sort));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalSortTypeException(sort);
+            }
+        }
+
+        if (isUserHasRole(authentication, "ADMIN_ROLE")) {
+            query.includeDeleted();
+        }
+
+        return query.build();
+    }
+
+    /**
+     * Wraps views into response writing only selected fields
+     */
+    private MappingJacksonValue filtered(Object value, Set<String> fields) {
+        MappingJacksonValue result = new MappingJacksonValue(value);
+        result.setFilters(ViewFields.only(fields));
+        return result;
+    }
+
     private boolean isUserHasRole(Authentication authentication, String role) {
         boolean hasRole = false;
         try {
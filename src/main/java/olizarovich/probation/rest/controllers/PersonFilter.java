@@ -0,0 +1,96 @@
+package olizarovich.probation.rest.controllers;
+
+import io.swagger.annotations.ApiParam;
+import olizarovich.probation.rest.queries.PersonQuery;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Filter parameters of person requests. Bound from query parameters,
+ * so listing and streaming of persons accept the same filter.
+ */
+public class PersonFilter {
+    private String firstName = "";
+
+    private String lastName = "";
+
+    @ApiParam(value = "Person has any of giving ids")
+    private List<Integer> ids;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    @ApiParam(value = "Date of person birthday")
+    private LocalDate birthDate;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    @ApiParam(value = "Search for person with birthday before giving date")
+    private LocalDate birthDateBefore;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    @ApiParam(value = "Search for person with birthday after giving date")
+    private LocalDate birthDateAfter;
+
+    /**
+     * Creates query builder with all set filters
+     *
+     * @return Builder for further settings
+     */
+    public PersonQuery.Builder toQuery() {
+        return PersonQuery.builder()
+                .filterByFirstName(firstName)
+                .filterByLastName(lastName)
+                .filterByIdIn(ids)
+                .filterByBirthDate(birthDate)
+                .filterByBirthDateLessThan(birthDateBefore)
+                .filterByBirthDateMoreThan(birthDateAfter);
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    public List<Integer> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Integer> ids) {
+        this.ids = ids;
+    }
+
+    public LocalDate getBirthDate() {
+        return birthDate;
+    }
+
+    public void setBirthDate(LocalDate birthDate) {
+        this.birthDate = birthDate;
+    }
+
+    public LocalDate getBirthDateBefore() {
+        return birthDateBefore;
+    }
+
+    public void setBirthDateBefore(LocalDate birthDateBefore) {
+        this.birthDateBefore = birthDateBefore;
+    }
+
+    public LocalDate getBirthDateAfter() {
+        return birthDateAfter;
+    }
+
+    public void setBirthDateAfter(LocalDate birthDateAfter) {
+        this.birthDateAfter = birthDateAfter;
+    }
+}
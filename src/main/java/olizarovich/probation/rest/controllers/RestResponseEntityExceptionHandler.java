@@ -1,6 +1,7 @@
 package olizarovich.probation.rest.controllers;
 
 import olizarovich.probation.rest.exceptions.IllegalSortTypeException;
+import olizarovich.probation.rest.exceptions.PasswordHashingBusyException;
 import olizarovich.probation.rest.exceptions.PersonNotFoundException;
 import org.apache.log4j.Logger;
 import org.springframework.http.HttpStatus;
@@ -29,4 +30,11 @@ public class RestResponseEntityExceptionHandler extends ResponseEntityExceptionH
         logger.error("Exception Raised=" + ex);
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
     }
+
+    @ExceptionHandler(value = {PasswordHashingBusyException.class})
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    protected ResponseEntity<Object> handleBusy(RuntimeException ex) {
+        logger.warn("Exception Raised=" + ex);
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+    }
 }
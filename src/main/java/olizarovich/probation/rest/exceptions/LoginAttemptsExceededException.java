@@ -0,0 +1,14 @@
+package olizarovich.probation.rest.exceptions;
+
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * Exception for too many login attempts with the same username or from the same address
+ */
+public class LoginAttemptsExceededException extends AuthenticationException {
+    private static String errorMessage = "Too many login attempts, try again later";
+
+    public LoginAttemptsExceededException() {
+        super(errorMessage);
+    }
+}
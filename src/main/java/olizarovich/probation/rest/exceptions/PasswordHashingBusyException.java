@@ -0,0 +1,19 @@
+package olizarovich.probation.rest.exceptions;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * Exception for password hashing queue being full or waiting too long.
+ * Extends authentication exception, so failed login is passed to login failure handler.
+ */
+public class PasswordHashingBusyException extends AuthenticationServiceException {
+    private static String errorMessage = "Server is busy, try again later";
+
+    public PasswordHashingBusyException() {
+        super(errorMessage);
+    }
+
+    public PasswordHashingBusyException(Throwable cause) {
+        super(errorMessage, cause);
+    }
+}
@@ -0,0 +1,52 @@
+package olizarovich.probation.rest.models;
+
+/**
+ * Result of saving one item of batch request.
+ * Contains id of saved entity or error if item was not saved.
+ */
+public class BatchResult {
+    /**
+     * Position of item in request, starting from 0
+     */
+    private final int index;
+
+    /**
+     * Id of saved entity. Null if item was not saved
+     */
+    private final Integer id;
+
+    /**
+     * Reason why item was not saved. Null if item was saved
+     */
+    private final String error;
+
+    private BatchResult(int index, Integer id, String error) {
+        this.index = index;
+        this.id = id;
+        this.error = error;
+    }
+
+    public static BatchResult saved(int index, Integer id) {
+        return new BatchResult(index, id, null);
+    }
+
+    public static BatchResult failed(int index, String error) {
+        return new BatchResult(index, null, error);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isSaved() {
+        return error == null;
+    }
+}
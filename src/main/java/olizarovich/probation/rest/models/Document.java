@@ -17,10 +17,12 @@ import java.util.Objects;
 public class Document {
 
     /**
-     * Integer field. Contains primary key in class
+     * Integer field. Contains primary key in class.
+     * Ids are taken from sequence in blocks, so inserts are sent in JDBC batches
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "documents_id")
+    @SequenceGenerator(name = "documents_id", sequenceName = "documents_id_seq", allocationSize = 50)
     private Integer id;
 
     /**
@@ -0,0 +1,158 @@
+package olizarovich.probation.rest.models;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import olizarovich.probation.rest.repositories.Projection;
+
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Selection;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Read only document for lists. Has the same fields as Document,
+ * but customer and executor are flat summaries without username and roles.
+ * Created from selected columns by constructor, see projection.
+ * For sparse fieldsets only requested columns are selected, see projection(Set).
+ */
+@JsonFilter(ViewFields.FILTER)
+public class DocumentView {
+    /**
+     * Fields which can be requested
+     */
+    public static final Set<String> FIELDS = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+            "id", "title", "status", "creationDate", "executionPeriod", "customer", "executor")));
+
+    /**
+     * Selects exposed columns of document and names of customer and executor with one query.
+     * Persons are joined with outer join, so documents without customer or executor are not lost
+     */
+    public static final Projection<Document, DocumentView> projection = Projection.of(DocumentView.class,
+            (root, builder) -> {
+                Join<Document, Person> customer = root.join(Document_.customer, JoinType.LEFT);
+                Join<Document, Person> executor = root.join(Document_.executor, JoinType.LEFT);
+
+                return new Selection<?>[]{
+                        root.get(Document_.id), root.get(Document_.title), root.get(Document_.status),
+                        root.get(Document_.creationDate), root.get(Document_.executionPeriod),
+                        customer.get(Person_.id), customer.get(Person_.firstName), customer.get(Person_.lastName),
+                        executor.get(Person_.id), executor.get(Person_.firstName), executor.get(Person_.lastName)};
+            });
+
+    /**
+     * Creates projection selecting only giving fields, other fields of views are null.
+     * Id is always selected. Customer and executor are joined only if requested
+     *
+     * @param fields Fields of FIELDS to select
+     * @return Projection read from tuples
+     */
+    public static Projection<Document, DocumentView> projection(Set<String> fields) {
+        boolean title = fields.contains("title");
+        boolean status = fields.contains("status");
+        boolean creationDate = fields.contains("creationDate");
+        boolean executionPeriod = fields.contains("executionPeriod");
+        boolean customer = fields.contains("customer");
+        boolean executor = fields.contains("executor");
+
+        return Projection.of(DocumentView.class, (root, builder) -> {
+            List<Selection<?>> selections = new ArrayList<>();
+            selections.add(root.get(Document_.id).alias("id"));
+
+            if (title) {
+                selections.add(root.get(Document_.title).alias("title"));
+            }
+            if (status) {
+                selections.add(root.get(Document_.status).alias("status"));
+            }
+            if (creationDate) {
+                selections.add(root.get(Document_.creationDate).alias("creationDate"));
+            }
+            if (executionPeriod) {
+                selections.add(root.get(Document_.executionPeriod).alias("executionPeriod"));
+            }
+            if (customer) {
+                addSummary(selections, root.join(Document_.customer, JoinType.LEFT), "customer");
+            }
+            if (executor) {
+                addSummary(selections, root.join(Document_.executor, JoinType.LEFT), "executor");
+            }
+
+            return selections.toArray(new Selection<?>[0]);
+        }, tuple -> new DocumentView(tuple.get("id", Integer.class),
+                title ? tuple.get("title", String.class) : null,
+                status ? tuple.get("status", String.class) : null,
+                creationDate ? tuple.get("creationDate", LocalDate.class) : null,
+                executionPeriod ? tuple.get("executionPeriod", LocalDate.class) : null,
+                customer ? tuple.get("customerId", Integer.class) : null,
+                customer ? tuple.get("customerFirstName", String.class) : null,
+                customer ? tuple.get("customerLastName", String.class) : null,
+                executor ? tuple.get("executorId", Integer.class) : null,
+                executor ? tuple.get("executorFirstName", String.class) : null,
+                executor ? tuple.get("executorLastName", String.class) : null));
+    }
+
+    private static void addSummary(List<Selection<?>> selections, Join<Document, Person> person, String name) {
+        selections.add(person.get(Person_.id).alias(name + "Id"));
+        selections.add(person.get(Person_.firstName).alias(name + "FirstName"));
+        selections.add(person.get(Person_.lastName).alias(name + "LastName"));
+    }
+
+    private final Integer id;
+
+    private final String title;
+
+    private final String status;
+
+    private final LocalDate creationDate;
+
+    private final LocalDate executionPeriod;
+
+    private final PersonSummary customer;
+
+    private final PersonSummary executor;
+
+    public DocumentView(Integer id, String title, String status, LocalDate creationDate, LocalDate executionPeriod,
+                        Integer customerId, String customerFirstName, String customerLastName,
+                        Integer executorId, String executorFirstName, String executorLastName) {
+        this.id = id;
+        this.title = title;
+        this.status = status;
+        this.creationDate = creationDate;
+        this.executionPeriod = executionPeriod;
+        this.customer = customerId == null ? null : new PersonSummary(customerId, customerFirstName, customerLastName);
+        this.executor = executorId == null ? null : new PersonSummary(executorId, executorFirstName, executorLastName);
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public LocalDate getCreationDate() {
+        return creationDate;
+    }
+
+    public LocalDate getExecutionPeriod() {
+        return executionPeriod;
+    }
+
+    public PersonSummary getCustomer() {
+        return customer;
+    }
+
+    public PersonSummary getExecutor() {
+        return executor;
+    }
+}
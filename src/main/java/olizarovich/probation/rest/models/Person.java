@@ -2,6 +2,9 @@ package olizarovich.probation.rest.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import javax.persistence.*;
@@ -10,10 +13,15 @@ import java.util.Objects;
 import java.util.Set;
 
 /**
- * The Person class is data class for holding information
+ * The Person class is data class for holding information.
+ * Persons and their roles are loaded in batches to avoid query per person in lists.
+ * Persons and roles are kept in second level cache, regions are configured in ehcache.xml
  */
 @Entity
 @Table(name = "persons")
+@BatchSize(size = 100)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Person {
 
     /**
@@ -52,6 +60,8 @@ public class Person {
     private LocalDate birthDate;
 
     @OneToMany(fetch = FetchType.EAGER, mappedBy = "personId")
+    @BatchSize(size = 100)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private Set<Role> roles;
 
     /**
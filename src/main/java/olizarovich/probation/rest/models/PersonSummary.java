@@ -0,0 +1,30 @@
+package olizarovich.probation.rest.models;
+
+/**
+ * Read only summary of person shown inside documents: id and name only
+ */
+public class PersonSummary {
+    private final Integer id;
+
+    private final String firstName;
+
+    private final String lastName;
+
+    public PersonSummary(Integer id, String firstName, String lastName) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+}
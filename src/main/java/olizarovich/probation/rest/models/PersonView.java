@@ -0,0 +1,141 @@
+package olizarovich.probation.rest.models;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import olizarovich.probation.rest.repositories.Projection;
+
+import javax.persistence.criteria.Selection;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Read only person for lists. Has the same fields as Person without password and soft delete flag.
+ * Created from selected columns by constructor, see projection. Roles are added after query.
+ * For sparse fieldsets only requested columns are selected, see projection(Set).
+ */
+@JsonFilter(ViewFields.FILTER)
+public class PersonView {
+    /**
+     * Fields which can be requested
+     */
+    public static final Set<String> FIELDS = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+            "id", "username", "firstName", "lastName", "birthDate", "roles")));
+
+    /**
+     * Selects exposed columns of person
+     */
+    public static final Projection<Person, PersonView> projection = Projection.of(PersonView.class,
+            (root, builder) -> new Selection<?>[]{
+                    root.get(Person_.id), root.get(Person_.username), root.get(Person_.firstName),
+                    root.get(Person_.lastName), root.get(Person_.birthDate)});
+
+    /**
+     * Creates projection selecting only giving fields, other fields of views are null.
+     * Id is always selected. Roles are not columns of person, they are added after query if requested
+     *
+     * @param fields Fields of FIELDS to select
+     * @return Projection read from tuples
+     */
+    public static Projection<Person, PersonView> projection(Set<String> fields) {
+        boolean username = fields.contains("username");
+        boolean firstName = fields.contains("firstName");
+        boolean lastName = fields.contains("lastName");
+        boolean birthDate = fields.contains("birthDate");
+
+        return Projection.of(PersonView.class, (root, builder) -> {
+            List<Selection<?>> selections = new ArrayList<>();
+            selections.add(root.get(Person_.id).alias("id"));
+
+            if (username) {
+                selections.add(root.get(Person_.username).alias("username"));
+            }
+            if (firstName) {
+                selections.add(root.get(Person_.firstName).alias("firstName"));
+            }
+            if (lastName) {
+                selections.add(root.get(Person_.lastName).alias("lastName"));
+            }
+            if (birthDate) {
+                selections.add(root.get(Person_.birthDate).alias("birthDate"));
+            }
+
+            return selections.toArray(new Selection<?>[0]);
+        }, tuple -> new PersonView(tuple.get("id", Integer.class),
+                username ? tuple.get("username", String.class) : null,
+                firstName ? tuple.get("firstName", String.class) : null,
+                lastName ? tuple.get("lastName", String.class) : null,
+                birthDate ? tuple.get("birthDate", LocalDate.class) : null));
+    }
+
+    private final Integer id;
+
+    private final String username;
+
+    private final String firstName;
+
+    private final String lastName;
+
+    private final LocalDate birthDate;
+
+    private final List<RoleView> roles = new ArrayList<>(2);
+
+    public PersonView(Integer id, String username, String firstName, String lastName, LocalDate birthDate) {
+        this.id = id;
+        this.username = username;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.birthDate = birthDate;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public LocalDate getBirthDate() {
+        return birthDate;
+    }
+
+    public List<RoleView> getRoles() {
+        return roles;
+    }
+
+    /**
+     * Adds role loaded for this person
+     *
+     * @param role Role name
+     */
+    public void addRole(String role) {
+        roles.add(new RoleView(role));
+    }
+
+    /**
+     * Role of person, written like Role entity
+     */
+    public static class RoleView {
+        private final String role;
+
+        public RoleView(String role) {
+            this.role = role;
+        }
+
+        public String getRole() {
+            return role;
+        }
+    }
+}
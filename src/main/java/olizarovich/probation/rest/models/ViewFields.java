@@ -0,0 +1,76 @@
+package olizarovich.probation.rest.models;
+
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Sparse fieldsets of read only views. Views are annotated with FILTER,
+ * so only requested fields are written into JSON while other views and entities are written fully.
+ */
+public final class ViewFields {
+    /**
+     * Id of Jackson filter used by views
+     */
+    public static final String FILTER = "viewFields";
+
+    private static final FilterProvider all = new SimpleFilterProvider()
+            .setDefaultFilter(SimpleBeanPropertyFilter.serializeAll());
+
+    private ViewFields() {
+    }
+
+    /**
+     * Parses comma separated list of fields
+     *
+     * @param fields  Requested fields, can be null or empty
+     * @param allowed Fields of view
+     * @return Requested fields in request order, empty if all fields are requested
+     * @throws IllegalArgumentException if view has no such field
+     */
+    public static Set<String> parse(String fields, Set<String> allowed) {
+        if (fields == null || fields.trim().isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        Set<String> result = new LinkedHashSet<>();
+        for (String i : fields.split(",")) {
+            String field = i.trim();
+            if (!allowed.contains(field)) {
+                throw new IllegalArgumentException("Unknown field: " + field);
+            }
+            result.add(field);
+        }
+
+        return result;
+    }
+
+    /**
+     * Filters writing all fields. Should be default filters of object mapper
+     *
+     * @return Filter provider
+     */
+    public static FilterProvider all() {
+        return all;
+    }
+
+    /**
+     * Filters writing only giving fields of views
+     *
+     * @param fields Fields to write, all fields if empty
+     * @return Filter provider
+     */
+    public static FilterProvider only(Set<String> fields) {
+        if (fields.isEmpty()) {
+            return all;
+        }
+
+        return new SimpleFilterProvider()
+                .addFilter(FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(fields))
+                .setDefaultFilter(SimpleBeanPropertyFilter.serializeAll());
+    }
+}
@@ -0,0 +1,79 @@
+package olizarovich.probation.rest.queries;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Position of the last entity of the page in keyset pagination.
+ * Encoded into opaque url safe string for clients.
+ */
+public class Cursor {
+    private static final String separator = "\n";
+
+    /**
+     * Written instead of null sort value. Text columns can not contain it
+     */
+    private static final String nullValue = "\u0000";
+
+    /**
+     * Sort field cursor was created for
+     */
+    private final String sortOrder;
+
+    /**
+     * Value of sort field in the last entity, null if the entity has no value
+     */
+    private final String value;
+
+    /**
+     * Id of the last entity
+     */
+    private final String id;
+
+    public Cursor(String sortOrder, Object value, Object id) {
+        this.sortOrder = sortOrder;
+        this.value = value == null ? null : value.toString();
+        this.id = Objects.toString(id, "");
+    }
+
+    /**
+     * Decodes cursor from client string
+     *
+     * @param token String created by encode method
+     * @return Decoded cursor
+     * @throws IllegalArgumentException if token is corrupted
+     */
+    public static Cursor decode(String token) {
+        String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        String[] parts = decoded.split(separator, 3);
+
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+
+        return new Cursor(parts[0], nullValue.equals(parts[2]) ? null : parts[2], parts[1]);
+    }
+
+    /**
+     * Encodes cursor to string for client
+     *
+     * @return Url safe string
+     */
+    public String encode() {
+        String raw = sortOrder + separator + id + separator + (value == null ? nullValue : value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getSortOrder() {
+        return sortOrder;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getId() {
+        return id;
+    }
+}
@@ -0,0 +1,44 @@
+package olizarovich.probation.rest.queries;
+
+import java.util.List;
+
+/**
+ * One page of search result with cursor to the next page
+ *
+ * @param <T> Entity type
+ */
+public class CursorPage<T> {
+    /**
+     * Response header with cursor to the next page
+     */
+    public static final String NEXT_HEADER = "X-Next-Cursor";
+
+    /**
+     * Response header with number of all matching entities
+     */
+    public static final String TOTAL_HEADER = "X-Total-Count";
+
+    private final List<T> content;
+
+    /**
+     * Cursor to the next page. Null if there is no next page.
+     */
+    private final String next;
+
+    public CursorPage(List<T> content, String next) {
+        this.content = content;
+        this.next = next;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+}
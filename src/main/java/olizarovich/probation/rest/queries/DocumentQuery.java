@@ -0,0 +1,252 @@
+package olizarovich.probation.rest.queries;
+
+import olizarovich.probation.rest.models.Document;
+import olizarovich.probation.rest.models.Document_;
+import olizarovich.probation.rest.models.Person_;
+import olizarovich.probation.rest.services.DocumentService;
+import olizarovich.probation.rest.specifications.FilterDescriptor;
+import olizarovich.probation.rest.specifications.Range;
+import olizarovich.probation.rest.specifications.SearchOperation;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Immutable search query for Document entity
+ */
+public class DocumentQuery extends SearchQuery<Document> {
+    /*
+     * Filters are compiled once, search only binds values
+     */
+    private static final FilterDescriptor<Document, Integer> idEqual = FilterDescriptor.of(
+            "id", SearchOperation.EQUALITY, root -> root.get(Document_.id));
+
+    private static final FilterDescriptor<Document, String> titleLike = FilterDescriptor.of(
+            "title", SearchOperation.LIKE, root -> root.get(Document_.title));
+
+    private static final FilterDescriptor<Document, String> statusLike = FilterDescriptor.of(
+            "status", SearchOperation.LIKE, root -> root.get(Document_.status));
+
+    private static final FilterDescriptor<Document, Collection<String>> statusIn = FilterDescriptor.of(
+            "status", SearchOperation.IN, root -> root.get(Document_.status));
+
+    private static final FilterDescriptor<Document, Collection<String>> statusNotIn = FilterDescriptor.of(
+            "status", SearchOperation.NOT_IN, root -> root.get(Document_.status));
+
+    private static final FilterDescriptor<Document, LocalDate> creationDateEqual = FilterDescriptor.of(
+            "creationDate", SearchOperation.EQUALITY, root -> root.get(Document_.creationDate));
+
+    private static final FilterDescriptor<Document, LocalDate> creationDateMoreThan = FilterDescriptor.of(
+            "creationDate", SearchOperation.GREATER_THAN, root -> root.get(Document_.creationDate));
+
+    private static final FilterDescriptor<Document, LocalDate> creationDateLessThan = FilterDescriptor.of(
+            "creationDate", SearchOperation.LESS_THAN, root -> root.get(Document_.creationDate));
+
+    private static final FilterDescriptor<Document, Range<LocalDate>> creationDateBetween = FilterDescriptor.of(
+            "creationDate", SearchOperation.BETWEEN, root -> root.get(Document_.creationDate));
+
+    private static final FilterDescriptor<Document, LocalDate> executionPeriodEqual = FilterDescriptor.of(
+            "executionPeriod", SearchOperation.EQUALITY, root -> root.get(Document_.executionPeriod));
+
+    private static final FilterDescriptor<Document, LocalDate> executionPeriodMoreThan = FilterDescriptor.of(
+            "executionPeriod", SearchOperation.GREATER_THAN, root -> root.get(Document_.executionPeriod));
+
+    private static final FilterDescriptor<Document, LocalDate> executionPeriodLessThan = FilterDescriptor.of(
+            "executionPeriod", SearchOperation.LESS_THAN, root -> root.get(Document_.executionPeriod));
+
+    private static final FilterDescriptor<Document, Range<LocalDate>> executionPeriodBetween = FilterDescriptor.of(
+            "executionPeriod", SearchOperation.BETWEEN, root -> root.get(Document_.executionPeriod));
+
+    private static final FilterDescriptor<Document, Integer> customerIdEqual = FilterDescriptor.of(
+            "customer.id", SearchOperation.EQUALITY, root -> root.get(Document_.customer).get(Person_.id));
+
+    private static final FilterDescriptor<Document, Collection<Integer>> customerIdIn = FilterDescriptor.of(
+            "customer.id", SearchOperation.IN, root -> root.get(Document_.customer).get(Person_.id));
+
+    private static final FilterDescriptor<Document, String> customerFirstNameLike = FilterDescriptor.of(
+            "customer.firstName", SearchOperation.LIKE, root -> root.get(Document_.customer).get(Person_.firstName));
+
+    private static final FilterDescriptor<Document, String> customerLastNameLike = FilterDescriptor.of(
+            "customer.lastName", SearchOperation.LIKE, root -> root.get(Document_.customer).get(Person_.lastName));
+
+    private static final FilterDescriptor<Document, Integer> executorIdEqual = FilterDescriptor.of(
+            "executor.id", SearchOperation.EQUALITY, root -> root.get(Document_.executor).get(Person_.id));
+
+    private static final FilterDescriptor<Document, Collection<Integer>> executorIdIn = FilterDescriptor.of(
+            "executor.id", SearchOperation.IN, root -> root.get(Document_.executor).get(Person_.id));
+
+    private static final FilterDescriptor<Document, String> executorFirstNameLike = FilterDescriptor.of(
+            "executor.firstName", SearchOperation.LIKE, root -> root.get(Document_.executor).get(Person_.firstName));
+
+    private static final FilterDescriptor<Document, String> executorLastNameLike = FilterDescriptor.of(
+            "executor.lastName", SearchOperation.LIKE, root -> root.get(Document_.executor).get(Person_.lastName));
+
+    private DocumentQuery(Builder builder) {
+        super(builder);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder providing sorting and filter settings for Document search
+     */
+    public static class Builder extends SearchQuery.Builder<Document, Builder> {
+
+        public Builder setSort(DocumentService.DocumentSort sort) {
+            return setSortOrder(sort.getSortOrder());
+        }
+
+        public Builder filterById(int id) {
+            if (id > -1)
+                specificationsBuilder.with(idEqual, id);
+            return this;
+        }
+
+        public Builder filterByTitle(String title) {
+            if (!title.isEmpty())
+                specificationsBuilder.with(titleLike, title);
+            return this;
+        }
+
+        public Builder filterByStatus(String status) {
+            if (!status.isEmpty())
+                specificationsBuilder.with(statusLike, status);
+            return this;
+        }
+
+        public Builder filterByStatusIn(Collection<String> statuses) {
+            if (statuses != null && !statuses.isEmpty())
+                specificationsBuilder.with(statusIn, new ArrayList<>(statuses));
+            return this;
+        }
+
+        public Builder filterByStatusNotIn(Collection<String> statuses) {
+            if (statuses != null && !statuses.isEmpty())
+                specificationsBuilder.with(statusNotIn, new ArrayList<>(statuses));
+            return this;
+        }
+
+        public Builder filterByCreationDate(LocalDate date) {
+            if (date != null)
+                specificationsBuilder.with(creationDateEqual, date);
+            return this;
+        }
+
+        public Builder filterByCreationDateMoreThan(LocalDate date) {
+            if (date != null)
+                specificationsBuilder.with(creationDateMoreThan, date);
+            return this;
+        }
+
+        public Builder filterByCreationDateLessThan(LocalDate date) {
+            if (date != null)
+                specificationsBuilder.with(creationDateLessThan, date);
+            return this;
+        }
+
+        public Builder filterByCreationDateBetween(LocalDate from, LocalDate to) {
+            if (from != null || to != null)
+                specificationsBuilder.with(creationDateBetween, new Range<>(from, to));
+            return this;
+        }
+
+        public Builder filterByExecutionDate(LocalDate date) {
+            if (date != null)
+                specificationsBuilder.with(executionPeriodEqual, date);
+            return this;
+        }
+
+        public Builder filterByExecutionDateMoreThan(LocalDate date) {
+            if (date != null)
+                specificationsBuilder.with(executionPeriodMoreThan, date);
+            return this;
+        }
+
+        public Builder filterByExecutionDateLessThan(LocalDate date) {
+            if (date != null)
+                specificationsBuilder.with(executionPeriodLessThan, date);
+            return this;
+        }
+
+        public Builder filterByExecutionDateBetween(LocalDate from, LocalDate to) {
+            if (from != null || to != null)
+                specificationsBuilder.with(executionPeriodBetween, new Range<>(from, to));
+            return this;
+        }
+
+        public Builder filterByCustomerId(int id) {
+            if (id > -1)
+                specificationsBuilder.with(customerIdEqual, id);
+            return this;
+        }
+
+        public Builder filterByCustomerIdIn(Collection<Integer> ids) {
+            if (ids != null && !ids.isEmpty())
+                specificationsBuilder.with(customerIdIn, new ArrayList<>(ids));
+            return this;
+        }
+
+        public Builder filterByCustomerFirstName(String firstName) {
+            if (!firstName.isEmpty())
+                specificationsBuilder.with(customerFirstNameLike, firstName);
+            return this;
+        }
+
+        public Builder filterByCustomerLastName(String lastName) {
+            if (!lastName.isEmpty())
+                specificationsBuilder.with(customerLastNameLike, lastName);
+            return this;
+        }
+
+        public Builder filterByExecutorId(int id) {
+            if (id > -1)
+                specificationsBuilder.with(executorIdEqual, id);
+            return this;
+        }
+
+        public Builder filterByExecutorIdIn(Collection<Integer> ids) {
+            if (ids != null && !ids.isEmpty())
+                specificationsBuilder.with(executorIdIn, new ArrayList<>(ids));
+            return this;
+        }
+
+        /**
+         * Searching documents where any of giving persons is customer or executor
+         *
+         * @param ids Ids of persons
+         * @return Builder for further settings
+         */
+        public Builder filterByPersonIdIn(Collection<Integer> ids) {
+            if (ids != null && !ids.isEmpty())
+                specificationsBuilder.withAnyOf(
+                        customerIdIn.bind(new ArrayList<>(ids)),
+                        executorIdIn.bind(new ArrayList<>(ids)));
+            return this;
+        }
+
+        public Builder filterByExecutorFirstName(String firstName) {
+            if (!firstName.isEmpty())
+                specificationsBuilder.with(executorFirstNameLike, firstName);
+            return this;
+        }
+
+        public Builder filterByExecutorLastName(String lastName) {
+            if (!lastName.isEmpty())
+                specificationsBuilder.with(executorLastNameLike, lastName);
+            return this;
+        }
+
+        @Override
+        protected Builder self() {
+            return this;
+        }
+
+        @Override
+        public DocumentQuery build() {
+            return new DocumentQuery(this);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package olizarovich.probation.rest.queries;
+
+import olizarovich.probation.rest.models.Person;
+import olizarovich.probation.rest.models.Person_;
+import olizarovich.probation.rest.services.PersonService;
+import olizarovich.probation.rest.specifications.FilterDescriptor;
+import olizarovich.probation.rest.specifications.Range;
+import olizarovich.probation.rest.specifications.SearchOperation;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Immutable search query for Person entity
+ */
+public class PersonQuery extends SearchQuery<Person> {
+    /*
+     * Filters are compiled once, search only binds values
+     */
+    private static final FilterDescriptor<Person, Collection<Integer>> idIn = FilterDescriptor.of(
+            "id", SearchOperation.IN, root -> root.get(Person_.id));
+
+    private static final FilterDescriptor<Person, String> usernameEqual = FilterDescriptor.of(
+            "username", SearchOperation.EQUALITY, root -> root.get(Person_.username));
+
+    private static final FilterDescriptor<Person, String> firstNameLike = FilterDescriptor.of(
+            "firstName", SearchOperation.LIKE, root -> root.get(Person_.firstName));
+
+    private static final FilterDescriptor<Person, String> lastNameLike = FilterDescriptor.of(
+            "lastName", SearchOperation.LIKE, root -> root.get(Person_.lastName));
+
+    private static final FilterDescriptor<Person, LocalDate> birthDateEqual = FilterDescriptor.of(
+            "birthDate", SearchOperation.EQUALITY, root -> root.get(Person_.birthDate));
+
+    private static final FilterDescriptor<Person, LocalDate> birthDateMoreThan = FilterDescriptor.of(
+            "birthDate", SearchOperation.GREATER_THAN, root -> root.get(Person_.birthDate));
+
+    private static final FilterDescriptor<Person, LocalDate> birthDateLessThan = FilterDescriptor.of(
+            "birthDate", SearchOperation.LESS_THAN, root -> root.get(Person_.birthDate));
+
+    private static final FilterDescriptor<Person, Range<LocalDate>> birthDateBetween = FilterDescriptor.of(
+            "birthDate", SearchOperation.BETWEEN, root -> root.get(Person_.birthDate));
+
+    private PersonQuery(Builder builder) {
+        super(builder);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder providing sorting and filter settings for Person search
+     */
+    public static class Builder extends SearchQuery.Builder<Person, Builder> {
+
+        public Builder setSort(PersonService.PersonSort sort) {
+            return setSortOrder(sort.getSortOrder());
+        }
+
+        public Builder filterByIdIn(Collection<Integer> ids) {
+            if (ids != null && !ids.isEmpty())
+                specificationsBuilder.with(idIn, new ArrayList<>(ids));
+            return this;
+        }
+
+        public Builder filterByUsername(String username) {
+            if (!username.isEmpty())
+                specificationsBuilder.with(usernameEqual, username);
+            return this;
+        }
+
+        public Builder filterByFirstName(String firstName) {
+            if (!firstName.isEmpty())
+                specificationsBuilder.with(firstNameLike, firstName);
+            return this;
+        }
+
+        public Builder filterByLastName(String lastName) {
+            if (!lastName.isEmpty())
+                specificationsBuilder.with(lastNameLike, lastName);
+            return this;
+        }
+
+        public Builder filterByBirthDate(LocalDate date) {
+            if (date != null)
+                specificationsBuilder.with(birthDateEqual, date);
+            return this;
+        }
+
+        public Builder filterByBirthDateMoreThan(LocalDate date) {
+            if (date != null)
+                specificationsBuilder.with(birthDateMoreThan, date);
+            return this;
+        }
+
+        public Builder filterByBirthDateLessThan(LocalDate date) {
+            if (date != null)
+                specificationsBuilder.with(birthDateLessThan, date);
+            return this;
+        }
+
+        public Builder filterByBirthDateBetween(LocalDate from, LocalDate to) {
+            if (from != null || to != null)
+                specificationsBuilder.with(birthDateBetween, new Range<>(from, to));
+            return this;
+        }
+
+        @Override
+        protected Builder self() {
+            return this;
+        }
+
+        @Override
+        public PersonQuery build() {
+            return new PersonQuery(this);
+        }
+    }
+}
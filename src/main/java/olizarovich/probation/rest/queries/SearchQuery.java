@@ -0,0 +1,294 @@
+package olizarovich.probation.rest.queries;
+
+import olizarovich.probation.rest.specifications.KeysetSpecification;
+import olizarovich.probation.rest.specifications.SpecificationsBuilder;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.NullValueInNestedPathException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Immutable search query. Holds filter, sort and page settings of one search.
+ * Created by Builder, so it can be safely shared between threads.
+ *
+ * @param <T> Entity type
+ */
+public abstract class SearchQuery<T> {
+    /**
+     * Maximum number of entities on one page
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * Id field. Used as tie breaker in keyset pagination
+     */
+    private static final String idOrder = "id";
+
+    /**
+     * Filter for search. If null searching all entities.
+     */
+    private final Specification<T> filter;
+
+    /**
+     * True if filter has criteria besides soft delete flag
+     */
+    private final boolean filtered;
+
+    /**
+     * Filter for search with cursor position. If null searching all entities.
+     */
+    private final Specification<T> specification;
+
+    /**
+     * Filter for entities with null sort value, read when values after cursor run out.
+     * Null if cursor is not used or is already among nulls.
+     */
+    private final Specification<T> nullsSpecification;
+
+    /**
+     * Page and sort settings. Unpaged if page was not set.
+     */
+    private final Pageable pageable;
+
+    /**
+     * Sort settings. Used if query is unpaged.
+     */
+    private final Sort sort;
+
+    /**
+     * Sort field. Null if sort is not set.
+     */
+    private final String sortOrder;
+
+    /**
+     * True if query selects page after cursor
+     */
+    private final boolean keyset;
+
+    protected SearchQuery(Builder<T, ?> builder) {
+        this.filtered = !builder.specificationsBuilder.isEmpty();
+
+        /*
+         * Criteria are copied, so builder can be reused without adding soft delete flag twice
+         */
+        SpecificationsBuilder<T> criteria = new SpecificationsBuilder<>(builder.specificationsBuilder);
+        if (builder.searchForDeleted != null) {
+            criteria.with("isDeleted", ":", builder.searchForDeleted);
+        }
+
+        this.filter = criteria.build();
+        Specification<T> specification = filter;
+        Specification<T> nullsSpecification = null;
+
+        this.keyset = builder.keyset;
+
+        if (builder.keyset) {
+            this.sortOrder = builder.sortOrder == null ? idOrder : builder.sortOrder;
+            this.sort = idOrder.equals(sortOrder) ? Sort.by(idOrder) : Sort.by(sortOrder).and(Sort.by(idOrder));
+            Pageable pageable = PageRequest.of(0, builder.size, sort);
+
+            if (builder.cursor != null && !builder.cursor.isEmpty()) {
+                Cursor cursor = Cursor.decode(builder.cursor);
+
+                if (!sortOrder.equals(cursor.getSortOrder())) {
+                    throw new IllegalArgumentException("Cursor was created for another sort order");
+                }
+
+                specification = Specification.where(filter)
+                        .and(new KeysetSpecification<>(sortOrder, cursor.getValue(), cursor.getId()));
+
+                if (!idOrder.equals(sortOrder) && cursor.getValue() != null) {
+                    nullsSpecification = Specification.where(filter).and(KeysetSpecification.nulls(sortOrder));
+                } else if (!idOrder.equals(sortOrder)) {
+                    pageable = getNullsPageable(builder.size);
+                }
+            }
+
+            this.pageable = pageable;
+        } else {
+            this.sortOrder = builder.sortOrder;
+            this.sort = sortOrder == null ? Sort.unsorted() : Sort.by(sortOrder);
+
+            if (builder.page >= 0) {
+                this.pageable = PageRequest.of(builder.page, builder.size, sort);
+            } else {
+                this.pageable = Pageable.unpaged();
+            }
+        }
+
+        this.specification = specification;
+        this.nullsSpecification = nullsSpecification;
+    }
+
+    public Specification<T> getFilter() {
+        return filter;
+    }
+
+    public boolean isFiltered() {
+        return filtered;
+    }
+
+    public Specification<T> getSpecification() {
+        return specification;
+    }
+
+    /**
+     * @return Filter for entities with null sort value, which follow the last value after cursor,
+     * null if they are selected by specification
+     */
+    public Specification<T> getNullsSpecification() {
+        return nullsSpecification;
+    }
+
+    /**
+     * Null sort values are equal, so entities with them are ordered by id only
+     *
+     * @param size Number of entities to read from nulls
+     * @return The first page of nulls
+     */
+    public Pageable getNullsPageable(int size) {
+        return PageRequest.of(0, size, Sort.by(idOrder));
+    }
+
+    public Pageable getPageable() {
+        return pageable;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    /**
+     * @return Sort field, id for keyset query without sort, null if query is not sorted
+     */
+    public String getSortOrder() {
+        return sortOrder;
+    }
+
+    public boolean isKeyset() {
+        return keyset;
+    }
+
+    /**
+     * Creates cursor to the page after giving entity or projection.
+     * Projection should have id and sort field under the same names as entity
+     *
+     * @param last Last entity or projection on current page
+     * @return Cursor in string format
+     */
+    public String nextCursor(Object last) {
+        BeanWrapperImpl wrapper = new BeanWrapperImpl(last);
+        Object value;
+
+        /*
+         * Sort field of missing association, e.g. document without customer, is null
+         */
+        try {
+            value = wrapper.getPropertyValue(sortOrder);
+        } catch (NullValueInNestedPathException ex) {
+            value = null;
+        }
+
+        return new Cursor(sortOrder, value, wrapper.getPropertyValue(idOrder)).encode();
+    }
+
+    /**
+     * Base builder for search queries. Not thread safe, should be used
+     * inside one request only.
+     *
+     * @param <T> Entity type
+     * @param <B> Type of concrete builder
+     */
+    public abstract static class Builder<T, B extends Builder<T, B>> {
+        /**
+         * Contains filter for search query.
+         */
+        protected final SpecificationsBuilder<T> specificationsBuilder = new SpecificationsBuilder<>();
+
+        /**
+         * Flag for searching softDeleted entities.
+         * If false searching only not deleted entities.
+         * If true searching only deleted entities.
+         * If null searching both not deleted and deleted entities.
+         */
+        private Boolean searchForDeleted = false;
+
+        private String sortOrder = null;
+
+        private int page = -1;
+
+        private int size;
+
+        private boolean keyset = false;
+
+        private String cursor = null;
+
+        /**
+         * Searching for soft deleted entities only
+         *
+         * @return Builder for further settings
+         */
+        public B searchOnlyInDeleted() {
+            searchForDeleted = true;
+            return self();
+        }
+
+        /**
+         * Searching for soft deleted and not deleted entities
+         *
+         * @return Builder for further settings
+         */
+        public B includeDeleted() {
+            searchForDeleted = null;
+            return self();
+        }
+
+        /**
+         * Searching for one page of entities by page number.
+         * Page size is limited by MAX_PAGE_SIZE.
+         *
+         * @param page Page number, starting from 0
+         * @param size Number of entities on page
+         * @return Builder for further settings
+         */
+        public B setPage(int page, int size) {
+            this.page = page;
+            this.size = Math.min(size, MAX_PAGE_SIZE);
+            this.keyset = false;
+            return self();
+        }
+
+        /**
+         * Searching for one page of entities placed after cursor.
+         * Entities are ordered by sort field and id. Page size is limited by MAX_PAGE_SIZE.
+         *
+         * @param cursor Cursor from previous page. Null or empty for first page
+         * @param size   Number of entities on page
+         * @return Builder for further settings
+         */
+        public B setCursor(String cursor, int size) {
+            this.cursor = cursor;
+            this.size = Math.min(size, MAX_PAGE_SIZE);
+            this.keyset = true;
+            this.page = -1;
+            return self();
+        }
+
+        /**
+         * Setting sort order
+         *
+         * @param sortOrder Entity field to sort by
+         * @return Builder for further settings
+         */
+        protected B setSortOrder(String sortOrder) {
+            this.sortOrder = sortOrder;
+            return self();
+        }
+
+        protected abstract B self();
+
+        public abstract SearchQuery<T> build();
+    }
+}
@@ -2,13 +2,16 @@ package olizarovich.probation.rest.repositories;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.repository.NoRepositoryBean;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Repository uses Specification for searching in database
@@ -18,4 +21,104 @@ import java.util.List;
  */
 @NoRepositoryBean
 public interface CrudSoftDeleteRepository<T, ID> extends JpaRepository<T, ID>, JpaSpecificationExecutor<T> {
+    /**
+     * Searching one page of entities without counting all matching entities.
+     * Selects one extra row to know if next page exists.
+     *
+     * @param specification Filter, can be null
+     * @param pageable      Page and sort settings
+     * @return Page content and next page flag
+     */
+    Slice<T> findSlice(Specification<T> specification, Pageable pageable);
+
+    /**
+     * Searching one page of projections without counting all matching entities.
+     * Only columns of projection are selected, entities are not created.
+     *
+     * @param specification Filter, can be null
+     * @param pageable      Page and sort settings
+     * @param projection    Selected columns and projection class
+     * @param <P>           Projection type
+     * @return Page content and next page flag
+     */
+    <P> Slice<P> findSlice(Specification<T> specification, Pageable pageable, Projection<T, P> projection);
+
+    /**
+     * Searching projections of all matching entities.
+     * Only columns of projection are selected, entities are not created.
+     *
+     * @param specification Filter, can be null
+     * @param sort          Sort settings
+     * @param projection    Selected columns and projection class
+     * @param <P>           Projection type
+     * @return List of projections
+     */
+    <P> List<P> findAll(Specification<T> specification, Sort sort, Projection<T, P> projection);
+
+    /**
+     * Reads all matching entities one by one through forward only cursor.
+     * Rows are fetched from database by fetchSize, persistence context is cleared after every fetch,
+     * so memory does not grow with number of entities. Entity should not be kept after action returns.
+     *
+     * @param specification Filter, can be null
+     * @param sort          Sort settings
+     * @param fetchSize     Number of rows fetched from database at once
+     * @param action        Called for every entity inside read only transaction
+     */
+    void scrollAll(Specification<T> specification, Sort sort, int fetchSize, Consumer<? super T> action);
+
+    /**
+     * Reads giving fields of all matching entities through forward only cursor.
+     * Only selected columns are read, entities are not created and persistence context stays empty.
+     *
+     * @param specification Filter, can be null
+     * @param sort          Sort settings
+     * @param fields        Field paths to select, nested fields are separated by dot, e.g. "customer.id"
+     * @param fetchSize     Number of rows fetched from database at once
+     * @param action        Called for every row with values in order of fields, array is not reused
+     */
+    void scrollFields(Specification<T> specification, Sort sort, List<String> fields, int fetchSize,
+                      Consumer<? super Object[]> action);
+
+    /**
+     * Saves entities in chunks. Persistence context is flushed and cleared after every chunk,
+     * so inserts are sent in JDBC batches and memory does not grow with number of entities.
+     * Saved entities are detached.
+     *
+     * @param entities  Entities to save
+     * @param chunkSize Number of entities flushed at once
+     * @param <S>       Entity type
+     * @return Saved entities in the same order
+     */
+    <S extends T> List<S> saveInChunks(List<S> entities, int chunkSize);
+
+    /**
+     * Soft deletes entities with giving ids by setting "isDeleted" to true.
+     * Sends one UPDATE statement per chunk of ids instead of one per entity.
+     *
+     * @param ids Ids of entities to soft delete
+     * @return Number of updated rows
+     */
+    int softDeleteAllById(Collection<ID> ids);
+
+    /**
+     * Restores soft deleted entities with giving ids by setting "isDeleted" to false.
+     * Sends one UPDATE statement per chunk of ids instead of one per entity.
+     *
+     * @param ids Ids of entities to restore
+     * @return Number of updated rows
+     */
+    int restoreAllById(Collection<ID> ids);
+
+    /**
+     * Sets field of all entities matching filter with one UPDATE statement, entities are not loaded.
+     * Filter is applied in subquery on ids, so it can use fields of joined entities.
+     * Filter should not use CriteriaQuery argument, null is passed.
+     *
+     * @param specification Filter, can be null
+     * @param field         Name of entity field to set
+     * @param value         New value
+     * @return Number of updated rows
+     */
+    int updateAll(Specification<T> specification, String field, Object value);
 }
@@ -1,16 +1,131 @@
 package olizarovich.probation.rest.repositories;
 
 import olizarovich.probation.rest.models.Document;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
 /**
  * Repository for Document entity with soft deletion
  */
 @Repository
 public interface DocumentRepository extends CrudSoftDeleteRepository<Document, Integer> {
+    /**
+     * Searching page of documents. Customer and executor are loaded in the same query
+     *
+     * @param specification Filter, can be null
+     * @param pageable      Page and sort settings
+     * @return Page content and next page flag
+     */
+    @EntityGraph(attributePaths = {"customer", "executor"}, type = EntityGraph.EntityGraphType.LOAD)
+    @Override
+    Slice<Document> findSlice(Specification<Document> specification, Pageable pageable);
+
+    /**
+     * Reading documents through cursor. Customer and executor are loaded in the same query
+     *
+     * @param specification Filter, can be null
+     * @param sort          Sort settings
+     * @param fetchSize     Number of rows fetched from database at once
+     * @param action        Called for every document
+     */
+    @EntityGraph(attributePaths = {"customer", "executor"}, type = EntityGraph.EntityGraphType.LOAD)
+    @Override
+    void scrollAll(Specification<Document> specification, Sort sort, int fetchSize, Consumer<? super Document> action);
+
+    /**
+     * Searching documents. Customer and executor are loaded in the same query
+     *
+     * @param specification Filter, can be null
+     * @return List of documents
+     */
+    @EntityGraph(attributePaths = {"customer", "executor"}, type = EntityGraph.EntityGraphType.LOAD)
+    @Override
+    List<Document> findAll(Specification<Document> specification);
+
+    /**
+     * Searching sorted documents. Customer and executor are loaded in the same query
+     *
+     * @param specification Filter, can be null
+     * @param sort          Sort settings
+     * @return List of documents
+     */
+    @EntityGraph(attributePaths = {"customer", "executor"}, type = EntityGraph.EntityGraphType.LOAD)
+    @Override
+    List<Document> findAll(Specification<Document> specification, Sort sort);
+
+    /**
+     * Searching documents by ids. Customer and executor are loaded in the same query
+     *
+     * @param ids Ids of documents
+     * @return List of documents in any order
+     */
+    @EntityGraph(attributePaths = {"customer", "executor"}, type = EntityGraph.EntityGraphType.LOAD)
+    @Override
+    List<Document> findAllById(Iterable<Integer> ids);
+
+    /**
+     * Full text search over not deleted documents. Title is weighted higher than status and person names.
+     * Every match found by GIN index is ranked, top-N sort keeps only limit rows in memory.
+     * Works only in PostgreSQL, uses search_vector column maintained by triggers.
+     *
+     * @param text  Words to search
+     * @param limit Maximum number of results
+     * @return Ids and ranks ordered by rank descending and id
+     */
+    @Query(value = "select d.id as id, ts_rank(d.search_vector, query) as rank "
+            + "from documents d, plainto_tsquery('simple', :text) query "
+            + "where d.search_vector @@ query and d.is_deleted = false "
+            + "order by rank desc, d.id limit :limit", nativeQuery = true)
+    List<SearchHit> search(@Param("text") String text, @Param("limit") int limit);
+
+    /**
+     * Full text search over not deleted documents placed after giving rank and id.
+     * Ranks every match like search, so pages follow relevance order of the whole table and do not overlap.
+     * Works only in PostgreSQL, uses search_vector column maintained by triggers.
+     *
+     * @param text  Words to search
+     * @param rank  Rank of the last document on previous page
+     * @param id    Id of the last document on previous page
+     * @param limit Maximum number of results
+     * @return Ids and ranks ordered by rank descending and id
+     */
+    @Query(value = "select hit.id as id, hit.rank as rank from ("
+            + "select d.id as id, ts_rank(d.search_vector, query) as rank "
+            + "from documents d, plainto_tsquery('simple', :text) query "
+            + "where d.search_vector @@ query and d.is_deleted = false) hit "
+            + "where hit.rank < :rank or (hit.rank = :rank and hit.id > :id) "
+            + "order by hit.rank desc, hit.id limit :limit", nativeQuery = true)
+    List<SearchHit> searchAfter(@Param("text") String text, @Param("rank") float rank,
+                                @Param("id") int id, @Param("limit") int limit);
+
+    /**
+     * Searching which of giving persons exist. Used to check customers and executors before batch insert
+     *
+     * @param ids Ids of persons
+     * @return Ids of existing persons
+     */
+    @Query("select p.id from Person p where p.id in :ids")
+    List<Integer> findExistingPersonIds(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Searching for documents with giving soft delete flag
+     * @param isDeleted Soft delete flag
+     * @return List of documents
+     */
+    List<Document> findByIsDeleted(Boolean isDeleted);
+
     /**
      * Soft deleted documents by setting column "isDeleted" to true
      *
@@ -33,13 +148,16 @@ public interface DocumentRepository extends CrudSoftDeleteRepository<Document, I
 
     /**
      * Soft deleted documents by setting column "isDeleted" to true
+     * with one UPDATE statement per chunk of ids
      *
      * @param entities List of persons to delete
      */
     @Modifying
     @Override
     default void deleteAll(Iterable<? extends Document> entities) {
-        entities.forEach(entity -> deleteById(entity.getId()));
+        List<Integer> ids = new ArrayList<>();
+        entities.forEach(entity -> ids.add(entity.getId()));
+        softDeleteAllById(ids);
     }
 
     /**
@@ -49,4 +167,13 @@ public interface DocumentRepository extends CrudSoftDeleteRepository<Document, I
     @Modifying
     @Override
     void deleteAll();
+
+    /**
+     * Result of full text search
+     */
+    interface SearchHit {
+        Integer getId();
+
+        Float getRank();
+    }
 }
@@ -1,11 +1,15 @@
 package olizarovich.probation.rest.repositories;
 
 import olizarovich.probation.rest.models.Person;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Repository for Person entity with soft deletion
  */
@@ -13,12 +17,20 @@ import org.springframework.stereotype.Repository;
 public interface PersonRepository extends CrudSoftDeleteRepository<Person, Integer> {
 
     /**
-     * Searching for person with giving username
+     * Searching for person with giving username. Roles are loaded in the same query
      * @param username Username to find
      * @return Person with giving username
      */
+    @EntityGraph(attributePaths = {"roles"})
     Person findByUsername(String username);
 
+    /**
+     * Searching for persons with giving soft delete flag
+     * @param isDeleted Soft delete flag
+     * @return List of persons
+     */
+    List<Person> findByIsDeleted(Boolean isDeleted);
+
     /**
      * Soft deleted person by setting column "isDeleted" to true
      * @param id Id of a person to soft delete
@@ -39,12 +51,15 @@ public interface PersonRepository extends CrudSoftDeleteRepository<Person, Integ
 
     /**
      * Soft deleted person by setting column "isDeleted" to true
+     * with one UPDATE statement per chunk of ids
      * @param entities List of persons to delete
      */
     @Modifying
     @Override
     default void deleteAll(Iterable<? extends Person> entities) {
-        entities.forEach(entity -> deleteById(entity.getId()));
+        List<Integer> ids = new ArrayList<>();
+        entities.forEach(entity -> ids.add(entity.getId()));
+        softDeleteAllById(ids);
     }
 
     /**
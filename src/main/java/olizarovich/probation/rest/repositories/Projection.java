@@ -0,0 +1,115 @@
+package olizarovich.probation.rest.repositories;
+
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CompoundSelection;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.util.function.Function;
+
+/**
+ * Read only projection: selected columns and class created from them.
+ * Rows are passed to constructor of projection class in order of selections
+ * or, for projections with varying columns, read from tuples by aliases.
+ * Entities are not created and nothing is kept in persistence context.
+ *
+ * @param <T> Entity type
+ * @param <P> Projection type
+ */
+public final class Projection<T, P> {
+    private final Class<P> type;
+
+    private final Selector<T> selector;
+
+    /**
+     * Converts tuple into projection. Null for constructor projections
+     */
+    private final Function<Tuple, P> mapper;
+
+    private Projection(Class<P> type, Selector<T> selector, Function<Tuple, P> mapper) {
+        this.type = type;
+        this.selector = selector;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Creates projection definition
+     *
+     * @param type     Projection class, should have constructor with arguments of selected types
+     * @param selector Selects columns of entity, may add joins to root
+     * @param <T>      Entity type
+     * @param <P>      Projection type
+     * @return Projection definition
+     */
+    public static <T, P> Projection<T, P> of(Class<P> type, Selector<T> selector) {
+        return new Projection<>(type, selector, null);
+    }
+
+    /**
+     * Creates projection read from tuples. Used when selected columns depend on request,
+     * so there is no constructor for every combination
+     *
+     * @param type     Projection class
+     * @param selector Selects columns of entity with aliases, may add joins to root
+     * @param mapper   Creates projection from tuple with selected aliases
+     * @param <T>      Entity type
+     * @param <P>      Projection type
+     * @return Projection definition
+     */
+    public static <T, P> Projection<T, P> of(Class<P> type, Selector<T> selector, Function<Tuple, P> mapper) {
+        return new Projection<>(type, selector, mapper);
+    }
+
+    /**
+     * Creates constructor selection for query
+     *
+     * @param root    Root of query
+     * @param builder Criteria builder
+     * @return Selection of projection
+     */
+    public CompoundSelection<P> select(Root<T> root, CriteriaBuilder builder) {
+        return builder.construct(type, selector.select(root, builder));
+    }
+
+    /**
+     * Creates selections for tuple query
+     *
+     * @param root    Root of query
+     * @param builder Criteria builder
+     * @return Selections with aliases
+     */
+    public Selection<?>[] selections(Root<T> root, CriteriaBuilder builder) {
+        return selector.select(root, builder);
+    }
+
+    /**
+     * Creates projection from tuple
+     *
+     * @param tuple Row of tuple query
+     * @return Projection
+     */
+    public P map(Tuple tuple) {
+        return mapper.apply(tuple);
+    }
+
+    /**
+     * @return True if projection is read from tuples, false if it is created by constructor expression
+     */
+    public boolean isTuple() {
+        return mapper != null;
+    }
+
+    public Class<P> getType() {
+        return type;
+    }
+
+    /**
+     * Selects columns of entity in order of projection constructor arguments
+     *
+     * @param <T> Entity type
+     */
+    @FunctionalInterface
+    public interface Selector<T> {
+        Selection<?>[] select(Root<T> root, CriteriaBuilder builder);
+    }
+}
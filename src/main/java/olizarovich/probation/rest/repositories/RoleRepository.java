@@ -2,9 +2,55 @@ package olizarovich.probation.rest.repositories;
 
 import olizarovich.probation.rest.models.Role;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
-public interface RoleRepository extends JpaRepository<Role, Integer> {
+public interface RoleRepository extends JpaRepository<Role, Integer>, RoleRepositoryCustom {
     Role findByRole(String role);
+
+    /**
+     * Searching role names of persons without loading Role entities
+     *
+     * @param personIds Ids of persons
+     * @return Pairs of person id and role name
+     */
+    @Query("select r.personId, r.role from Role r where r.personId in :personIds")
+    List<Object[]> findRoleNames(@Param("personIds") Collection<Integer> personIds);
+
+    /*
+     * Write methods are declared by both JpaRepository and RoleRepositoryCustom,
+     * they are declared again to pick implementation with eviction, see RoleRepositoryCustomImpl
+     */
+
+    @Override
+    <S extends Role> S save(S role);
+
+    @Override
+    <S extends Role> List<S> saveAll(Iterable<S> roles);
+
+    @Override
+    <S extends Role> S saveAndFlush(S role);
+
+    @Override
+    void deleteById(Integer id);
+
+    @Override
+    void delete(Role role);
+
+    @Override
+    void deleteAll(Iterable<? extends Role> roles);
+
+    @Override
+    void deleteAll();
+
+    @Override
+    void deleteInBatch(Iterable<Role> roles);
+
+    @Override
+    void deleteAllInBatch();
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+package olizarovich.probation.rest.repositories;
+
+import olizarovich.probation.rest.models.Role;
+
+import java.util.List;
+
+/**
+ * Role saving and deleting with eviction of cached person roles.
+ * Every write method of JpaRepository is declared here, so none of them skips eviction.
+ */
+public interface RoleRepositoryCustom {
+    /**
+     * Saves role and evicts cached roles collection of its person
+     *
+     * @param role Role to save
+     * @param <S>  Role type
+     * @return Saved role
+     */
+    <S extends Role> S save(S role);
+
+    /**
+     * Saves roles and evicts cached roles collections of their persons
+     *
+     * @param roles Roles to save
+     * @param <S>   Role type
+     * @return Saved roles
+     */
+    <S extends Role> List<S> saveAll(Iterable<S> roles);
+
+    /**
+     * Saves role, flushes changes and evicts cached roles collection of its person
+     *
+     * @param role Role to save
+     * @param <S>  Role type
+     * @return Saved role
+     */
+    <S extends Role> S saveAndFlush(S role);
+
+    /**
+     * Deletes role by id and evicts cached roles collection of its person
+     *
+     * @param id Id of role
+     * @throws org.springframework.dao.EmptyResultDataAccessException if role does not exist
+     */
+    void deleteById(Integer id);
+
+    /**
+     * Deletes role and evicts cached roles collection of its person
+     *
+     * @param role Role to delete
+     */
+    void delete(Role role);
+
+    /**
+     * Deletes roles and evicts cached roles collections of their persons
+     *
+     * @param roles Roles to delete
+     */
+    void deleteAll(Iterable<? extends Role> roles);
+
+    /**
+     * Deletes all roles and evicts all cached roles and users
+     */
+    void deleteAll();
+
+    /**
+     * Deletes roles by one query and evicts cached roles collections of their persons
+     *
+     * @param roles Roles to delete
+     */
+    void deleteInBatch(Iterable<Role> roles);
+
+    /**
+     * Deletes all roles by one query and evicts all cached roles and users
+     */
+    void deleteAllInBatch();
+}
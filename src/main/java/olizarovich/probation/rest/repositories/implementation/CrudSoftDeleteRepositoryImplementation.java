@@ -0,0 +1,310 @@
+package olizarovich.probation.rest.repositories.implementation;
+
+import olizarovich.probation.rest.repositories.CrudSoftDeleteRepository;
+import olizarovich.probation.rest.repositories.Projection;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.ParameterExpression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.criteria.Subquery;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Base class for all repositories. Adds search of page without count query, projections, reading through cursor,
+ * chunked saving and set based updates.
+ *
+ * @param <T>  Entity type
+ * @param <ID> Id type
+ */
+public class CrudSoftDeleteRepositoryImplementation<T, ID> extends SimpleJpaRepository<T, ID>
+        implements CrudSoftDeleteRepository<T, ID> {
+    /**
+     * Maximum number of ids in one UPDATE statement
+     */
+    private static final int idsChunkSize = 1000;
+
+    /**
+     * Soft delete flag, every entity should have it
+     */
+    private static final String deletedField = "isDeleted";
+
+    private final JpaEntityInformation<T, ?> entityInformation;
+
+    private final EntityManager entityManager;
+
+    public CrudSoftDeleteRepositoryImplementation(JpaEntityInformation<T, ?> entityInformation,
+                                                  EntityManager entityManager) {
+        super(entityInformation, entityManager);
+        this.entityInformation = entityInformation;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Slice<T> findSlice(Specification<T> specification, Pageable pageable) {
+        TypedQuery<T> query = getQuery(specification, pageable.getSort());
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize() + 1);
+
+        List<T> content = query.getResultList();
+        boolean hasNext = content.size() > pageable.getPageSize();
+
+        if (hasNext) {
+            content = content.subList(0, pageable.getPageSize());
+        }
+
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    @Override
+    public <P> Slice<P> findSlice(Specification<T> specification, Pageable pageable, Projection<T, P> projection) {
+        List<P> content = getProjectionResult(specification, pageable.getSort(), projection,
+                (int) pageable.getOffset(), pageable.getPageSize() + 1);
+        boolean hasNext = content.size() > pageable.getPageSize();
+
+        if (hasNext) {
+            content = content.subList(0, pageable.getPageSize());
+        }
+
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    @Override
+    public <P> List<P> findAll(Specification<T> specification, Sort sort, Projection<T, P> projection) {
+        return getProjectionResult(specification, sort, projection, 0, -1);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void scrollAll(Specification<T> specification, Sort sort, int fetchSize, Consumer<? super T> action) {
+        TypedQuery<T> query = getQuery(specification, sort);
+        query.setHint(QueryHints.HINT_FETCH_SIZE, fetchSize);
+        query.setHint(QueryHints.HINT_READONLY, true);
+
+        try (Stream<T> rows = query.getResultStream()) {
+            int read = 0;
+            Iterator<T> iterator = rows.iterator();
+
+            while (iterator.hasNext()) {
+                action.accept(iterator.next());
+
+                if (++read % fetchSize == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void scrollFields(Specification<T> specification, Sort sort, List<String> fields, int fetchSize,
+                             Consumer<? super Object[]> action) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = builder.createQuery(Object[].class);
+        Root<T> root = query.from(getDomainClass());
+
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            Path<?> path = root;
+            for (String part : field.split("\\.")) {
+                path = path.get(part);
+            }
+            selections.add(path);
+        }
+        query.multiselect(selections);
+
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, builder);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, builder));
+        }
+
+        TypedQuery<Object[]> typedQuery = entityManager.createQuery(query);
+        typedQuery.setHint(QueryHints.HINT_FETCH_SIZE, fetchSize);
+
+        try (Stream<Object[]> rows = typedQuery.getResultStream()) {
+            rows.forEach(action);
+        }
+    }
+
+    @Override
+    @Transactional
+    public <S extends T> List<S> saveInChunks(List<S> entities, int chunkSize) {
+        List<S> saved = new ArrayList<>(entities.size());
+
+        for (S entity : entities) {
+            if (entityInformation.isNew(entity)) {
+                entityManager.persist(entity);
+                saved.add(entity);
+            } else {
+                saved.add(entityManager.merge(entity));
+            }
+
+            if (saved.size() % chunkSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public int softDeleteAllById(Collection<ID> ids) {
+        return setDeleted(ids, true);
+    }
+
+    @Override
+    @Transactional
+    public int restoreAllById(Collection<ID> ids) {
+        return setDeleted(ids, false);
+    }
+
+    @Override
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public int updateAll(Specification<T> specification, String field, Object value) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        String idField = entityInformation.getIdAttribute().getName();
+
+        CriteriaUpdate<T> update = builder.createCriteriaUpdate(getDomainClass());
+        Root<T> root = update.from(getDomainClass());
+        Path<Object> path = root.get(field);
+        ParameterExpression<Object> valueParameter = builder.parameter((Class<Object>) path.getJavaType(), "value");
+        update.<Object>set(path, valueParameter);
+
+        Predicate predicate = null;
+        if (specification != null) {
+            Subquery<Object> matching = update.subquery(Object.class);
+            Root<T> matchingRoot = matching.from(getDomainClass());
+            Predicate filter = specification.toPredicate(matchingRoot, null, builder);
+
+            if (filter != null) {
+                matching.select(matchingRoot.get(idField)).where(filter);
+                predicate = root.get(idField).in(matching);
+            }
+        }
+
+        if (predicate != null) {
+            update.where(predicate);
+        }
+
+        return entityManager.createQuery(update).setParameter("value", value).executeUpdate();
+    }
+
+    /**
+     * Selects projections by constructor or by tuples converted by projection.
+     * Sort by field of association reuses join of projection
+     *
+     * @param maxResults Maximum number of rows, -1 for all rows
+     */
+    private <P> List<P> getProjectionResult(Specification<T> specification, Sort sort, Projection<T, P> projection,
+                                            int firstResult, int maxResults) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+
+        if (projection.isTuple()) {
+            CriteriaQuery<Tuple> query = builder.createTupleQuery();
+            Root<T> root = query.from(getDomainClass());
+            query.multiselect(projection.selections(root, builder));
+            restrict(query, root, specification, sort);
+
+            List<Tuple> rows = limit(entityManager.createQuery(query), firstResult, maxResults).getResultList();
+            List<P> result = new ArrayList<>(rows.size());
+            for (Tuple i : rows) {
+                result.add(projection.map(i));
+            }
+
+            return result;
+        }
+
+        CriteriaQuery<P> query = builder.createQuery(projection.getType());
+        Root<T> root = query.from(getDomainClass());
+        query.select(projection.select(root, builder));
+        restrict(query, root, specification, sort);
+
+        return limit(entityManager.createQuery(query), firstResult, maxResults).getResultList();
+    }
+
+    private void restrict(CriteriaQuery<?> query, Root<T> root, Specification<T> specification, Sort sort) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, builder);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, builder));
+        }
+    }
+
+    private static <Q extends TypedQuery<?>> Q limit(Q query, int firstResult, int maxResults) {
+        query.setFirstResult(firstResult);
+        if (maxResults >= 0) {
+            query.setMaxResults(maxResults);
+        }
+
+        return query;
+    }
+
+    /**
+     * Sets soft delete flag by chunks of ids. Chunk is bound as one list parameter padded by Hibernate,
+     * so chunks of different size share few statement plans
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private int setDeleted(Collection<ID> ids, boolean deleted) {
+        List<ID> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        String idField = entityInformation.getIdAttribute().getName();
+
+        CriteriaUpdate<T> update = builder.createCriteriaUpdate(getDomainClass());
+        Root<T> root = update.from(getDomainClass());
+        ParameterExpression<Collection> idsParameter = builder.parameter(Collection.class, "ids");
+        update.set(root.get(deletedField), deleted).where(root.get(idField).in((Expression) idsParameter));
+        Query query = entityManager.createQuery(update);
+
+        int updated = 0;
+        for (int from = 0; from < distinct.size(); from += idsChunkSize) {
+            List<ID> chunk = distinct.subList(from, Math.min(from + idsChunkSize, distinct.size()));
+            updated += query.setParameter("ids", chunk).executeUpdate();
+        }
+
+        return updated;
+    }
+}
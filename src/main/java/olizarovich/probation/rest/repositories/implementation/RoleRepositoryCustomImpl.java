@@ -0,0 +1,203 @@
+package olizarovich.probation.rest.repositories.implementation;
+
+import olizarovich.probation.rest.models.Person;
+import olizarovich.probation.rest.models.Role;
+import olizarovich.probation.rest.repositories.RoleRepositoryCustom;
+import olizarovich.probation.rest.security.UserDetailsCache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Person.roles is mapped by plain personId column, so Hibernate can not invalidate cached collection
+ * when role is saved or deleted. Collection and cached user details are evicted here after transaction
+ * completion by every write method. Name is required by Spring Data to find implementation of RoleRepositoryCustom.
+ */
+public class RoleRepositoryCustomImpl implements RoleRepositoryCustom {
+    private static final String rolesRegion = Person.class.getName() + ".roles";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Cache of authentication data. Not created in repository only contexts
+     */
+    @Autowired(required = false)
+    private UserDetailsCache userDetailsCache;
+
+    @Override
+    @Transactional
+    public <S extends Role> S save(S role) {
+        S saved;
+
+        if (role.getId() == null) {
+            entityManager.persist(role);
+            saved = role;
+        } else {
+            saved = entityManager.merge(role);
+        }
+
+        evict(saved.getPersonId());
+
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public <S extends Role> List<S> saveAll(Iterable<S> roles) {
+        List<S> saved = new ArrayList<>();
+        for (S i : roles) {
+            saved.add(save(i));
+        }
+
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public <S extends Role> S saveAndFlush(S role) {
+        S saved = save(role);
+        entityManager.flush();
+
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public void deleteById(Integer id) {
+        Role role = entityManager.find(Role.class, id);
+        if (role == null) {
+            throw new EmptyResultDataAccessException(
+                    String.format("No %s entity with id %s exists!", Role.class, id), 1);
+        }
+
+        delete(role);
+    }
+
+    @Override
+    @Transactional
+    public void delete(Role role) {
+        if (role.getId() == null) {
+            return;
+        }
+
+        Role managed = entityManager.contains(role) ? role : entityManager.find(Role.class, role.getId());
+        if (managed == null) {
+            return;
+        }
+
+        evict(managed.getPersonId());
+        entityManager.remove(managed);
+    }
+
+    @Override
+    @Transactional
+    public void deleteAll(Iterable<? extends Role> roles) {
+        for (Role i : roles) {
+            delete(i);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void deleteAll() {
+        deleteAll(entityManager.createQuery("select r from Role r", Role.class).getResultList());
+    }
+
+    @Override
+    @Transactional
+    public void deleteInBatch(Iterable<Role> roles) {
+        List<Integer> ids = new ArrayList<>();
+        for (Role i : roles) {
+            ids.add(i.getId());
+            evict(i.getPersonId());
+        }
+
+        if (!ids.isEmpty()) {
+            entityManager.createQuery("delete from Role r where r.id in :ids")
+                    .setParameter("ids", ids)
+                    .executeUpdate();
+        }
+    }
+
+    @Override
+    @Transactional
+    public void deleteAllInBatch() {
+        entityManager.createQuery("delete from Role r").executeUpdate();
+        evictAll();
+    }
+
+    private void evict(Integer personId) {
+        evictRoles(personId);
+        evictUser(personId);
+    }
+
+    /**
+     * Evicts roles of all persons and all cached users now and after transaction completion
+     */
+    private void evictAll() {
+        SessionFactory sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictCollectionData(rolesRegion);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    sessionFactory.getCache().evictCollectionData(rolesRegion);
+                }
+            });
+        }
+
+        if (userDetailsCache != null) {
+            userDetailsCache.evictAll();
+        }
+    }
+
+    /**
+     * Evicts cached roles of person now and after transaction completion,
+     * so concurrent readers can not put old collection back into cache
+     *
+     * @param personId Id of person
+     */
+    private void evictRoles(Integer personId) {
+        if (personId == null) {
+            return;
+        }
+
+        SessionFactory sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictCollectionData(rolesRegion, personId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    sessionFactory.getCache().evictCollectionData(rolesRegion, personId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Evicts cached user details of person, so new roles are used on next authentication
+     *
+     * @param personId Id of person
+     */
+    private void evictUser(Integer personId) {
+        if (userDetailsCache == null || personId == null) {
+            return;
+        }
+
+        Person person = entityManager.find(Person.class, personId);
+        if (person != null) {
+            userDetailsCache.evict(person.getUsername());
+        }
+    }
+}
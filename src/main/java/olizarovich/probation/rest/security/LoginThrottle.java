@@ -0,0 +1,116 @@
+package olizarovich.probation.rest.security;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free limiter of login attempts per key (username or client address).
+ * Counters are kept in fixed array like count-min sketch: every key uses two slots and the smaller
+ * counter is its estimate, so memory does not depend on number of keys. Collisions can only overestimate.
+ * Every counter is halved after each half life, so blocked key is allowed again when attempts stop.
+ * Slot keeps time of last decay in upper 40 bits and counter in lower 24 bits, it is changed by CAS.
+ */
+public class LoginThrottle {
+    private static final int countBits = 24;
+
+    private static final long countMask = (1L << countBits) - 1;
+
+    private final AtomicLongArray slots;
+
+    private final int mask;
+
+    private final int seed = ThreadLocalRandom.current().nextInt();
+
+    private final int maxAttempts;
+
+    private final long halfLife;
+
+    private final Clock clock;
+
+    /**
+     * @param size        Number of counters, rounded up to power of two
+     * @param maxAttempts Number of attempts allowed before blocking
+     * @param halfLife    Time after which counter is halved, at least one second
+     * @param clock       Clock for decay
+     */
+    public LoginThrottle(int size, int maxAttempts, Duration halfLife, Clock clock) {
+        if (size < 2 || maxAttempts < 1 || halfLife.getSeconds() < 1) {
+            throw new IllegalArgumentException("Incorrect login throttle settings");
+        }
+
+        int capacity = Integer.highestOneBit(size - 1) << 1;
+        this.slots = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        this.maxAttempts = maxAttempts;
+        this.halfLife = halfLife.getSeconds();
+        this.clock = clock;
+    }
+
+    /**
+     * Counts attempt of key
+     *
+     * @param key Username or client address
+     * @return True if attempt is allowed, false if key made too many attempts
+     */
+    public boolean tryAcquire(String key) {
+        int hash = mix(key.hashCode() ^ seed);
+        long now = clock.millis() / 1000;
+
+        long first = increment(hash & mask, now);
+        long second = increment(mix(hash) & mask, now);
+
+        return Math.min(first, second) <= maxAttempts;
+    }
+
+    /**
+     * Estimates number of recent attempts of key without counting new one
+     *
+     * @param key Username or client address
+     * @return Decayed number of attempts
+     */
+    public long attempts(String key) {
+        int hash = mix(key.hashCode() ^ seed);
+        long now = clock.millis() / 1000;
+
+        return Math.min(decayed(slots.get(hash & mask), now), decayed(slots.get(mix(hash) & mask), now));
+    }
+
+    private long increment(int index, long now) {
+        while (true) {
+            long current = slots.get(index);
+            long stamp = current >>> countBits;
+            long count = decayed(current, now);
+
+            if (now - stamp >= halfLife) {
+                stamp += (now - stamp) / halfLife * halfLife;
+            }
+
+            long next = Math.min(count + 1, countMask);
+            if (slots.compareAndSet(index, current, stamp << countBits | next)) {
+                return next;
+            }
+        }
+    }
+
+    private long decayed(long slot, long now) {
+        long count = slot & countMask;
+        long periods = (now - (slot >>> countBits)) / halfLife;
+
+        if (periods <= 0) {
+            return count;
+        }
+
+        return periods >= countBits ? 0 : count >> periods;
+    }
+
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
@@ -0,0 +1,23 @@
+package olizarovich.probation.rest.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * User details of authenticated person. Keeps person id, so it can be put into signed token
+ */
+public class PersonDetails extends User {
+    private final Integer personId;
+
+    public PersonDetails(Integer personId, String username, String password,
+                         Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, authorities);
+        this.personId = personId;
+    }
+
+    public Integer getPersonId() {
+        return personId;
+    }
+}
@@ -0,0 +1,258 @@
+package olizarovich.probation.rest.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Issues and verifies compact signed tokens for stateless authentication.
+ * Token is "payload.signature", both parts are base64url without padding.
+ * Payload is "personId:expiresAt:authority,authority:username", signature is HMAC-SHA256 of encoded payload.
+ * Verification checks signature and expiration only, session store and database are not used.
+ * Thread safe.
+ */
+public class SignedTokenService {
+    private static final String algorithm = "HmacSHA256";
+
+    private static final int signatureLength = 32;
+
+    private static final char[] alphabet =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+
+    /**
+     * Maximum number of cached authority lists. Lists are cached by authorities part of token,
+     * there are only few role combinations, so limit is not reached in practice
+     */
+    private static final int maxAuthorityLists = 256;
+
+    private final SecretKeySpec key;
+
+    private final long timeToLive;
+
+    private final Clock clock;
+
+    /**
+     * Mac is not thread safe, every thread keeps its own instance and buffers
+     */
+    private final ThreadLocal<Signer> signers;
+
+    private final ConcurrentHashMap<String, List<GrantedAuthority>> authorityLists = new ConcurrentHashMap<>();
+
+    /**
+     * @param secret     Key for signature, at least 32 bytes
+     * @param timeToLive Time while token is valid
+     * @param clock      Clock for expiration
+     */
+    public SignedTokenService(byte[] secret, Duration timeToLive, Clock clock) {
+        if (secret == null || secret.length < signatureLength) {
+            throw new IllegalArgumentException("Token secret should have at least 32 bytes");
+        }
+
+        this.key = new SecretKeySpec(secret, algorithm);
+        this.timeToLive = timeToLive.getSeconds();
+        this.clock = clock;
+        this.signers = ThreadLocal.withInitial(() -> new Signer(key));
+    }
+
+    /**
+     * Creates token for authenticated person
+     *
+     * @param person Authenticated person
+     * @return Signed token
+     */
+    public String issue(PersonDetails person) {
+        StringBuilder authorities = new StringBuilder();
+        for (GrantedAuthority i : person.getAuthorities()) {
+            if (authorities.length() > 0) {
+                authorities.append(',');
+            }
+            authorities.append(i.getAuthority());
+        }
+
+        long expiresAt = clock.instant().getEpochSecond() + timeToLive;
+        String payload = person.getPersonId() + ":" + expiresAt + ":" + authorities + ":" + person.getUsername();
+        String encoded = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder token = new StringBuilder(encoded.length() + 44).append(encoded).append('.');
+        Signer signer = signers.get();
+        byte[] signature = signer.sign(encoded, encoded.length());
+        appendBase64(token, signature);
+
+        return token.toString();
+    }
+
+    /**
+     * Verifies token signature and expiration
+     *
+     * @param token Token from request
+     * @return Authentication of person or null if token is invalid or expired
+     */
+    public TokenAuthentication verify(String token) {
+        if (token == null) {
+            return null;
+        }
+
+        int dot = token.lastIndexOf('.');
+        if (dot <= 0 || token.length() - dot - 1 != encodedSignatureLength()) {
+            return null;
+        }
+
+        byte[] signature = signers.get().sign(token, dot);
+        if (!matches(signature, token, dot + 1)) {
+            return null;
+        }
+
+        String payload;
+        try {
+            payload = new String(Base64.getUrlDecoder().decode(token.substring(0, dot)), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+
+        int first = payload.indexOf(':');
+        int second = payload.indexOf(':', first + 1);
+        int third = payload.indexOf(':', second + 1);
+        if (first <= 0 || second <= first || third < second) {
+            return null;
+        }
+
+        long expiresAt = parseLong(payload, first + 1, second);
+        if (expiresAt < clock.instant().getEpochSecond()) {
+            return null;
+        }
+
+        int personId = (int) parseLong(payload, 0, first);
+        List<GrantedAuthority> authorities = authorities(payload.substring(second + 1, third));
+
+        return new TokenAuthentication(personId, payload.substring(third + 1), authorities);
+    }
+
+    private List<GrantedAuthority> authorities(String value) {
+        List<GrantedAuthority> authorities = authorityLists.get(value);
+        if (authorities != null) {
+            return authorities;
+        }
+
+        List<GrantedAuthority> list = new ArrayList<>();
+        for (String i : value.split(",")) {
+            if (!i.isEmpty()) {
+                list.add(new SimpleGrantedAuthority(i));
+            }
+        }
+        authorities = Collections.unmodifiableList(list);
+
+        if (authorityLists.size() < maxAuthorityLists) {
+            authorityLists.putIfAbsent(value, authorities);
+        }
+
+        return authorities;
+    }
+
+    /**
+     * Compares signature with base64url encoded signature in token in constant time
+     */
+    private static boolean matches(byte[] signature, String token, int offset) {
+        int difference = 0;
+        int position = offset;
+
+        for (int i = 0; i < signatureLength; i += 3) {
+            int bits = (signature[i] & 0xff) << 16;
+            int chars = 4;
+            if (i + 1 < signatureLength) {
+                bits |= (signature[i + 1] & 0xff) << 8;
+            } else {
+                chars = 2;
+            }
+            if (i + 2 < signatureLength) {
+                bits |= signature[i + 2] & 0xff;
+            } else if (chars == 4) {
+                chars = 3;
+            }
+
+            for (int j = 0; j < chars; j++) {
+                difference |= alphabet[(bits >> (18 - 6 * j)) & 0x3f] ^ token.charAt(position++);
+            }
+        }
+
+        return difference == 0;
+    }
+
+    private static void appendBase64(StringBuilder builder, byte[] signature) {
+        builder.append(Base64.getUrlEncoder().withoutPadding().encodeToString(signature));
+    }
+
+    private static int encodedSignatureLength() {
+        return (signatureLength * 4 + 2) / 3;
+    }
+
+    private static long parseLong(String value, int from, int to) {
+        if (from >= to || to - from > 18) {
+            return -1;
+        }
+
+        long result = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+
+        return result;
+    }
+
+    /**
+     * Mac with reusable buffers of one thread
+     */
+    private static class Signer {
+        private final Mac mac;
+
+        private final byte[] signature = new byte[signatureLength];
+
+        private byte[] buffer = new byte[256];
+
+        Signer(SecretKeySpec key) {
+            try {
+                mac = Mac.getInstance(algorithm);
+                mac.init(key);
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("HmacSHA256 is not available", ex);
+            }
+        }
+
+        /**
+         * Signs first characters of ascii string. Returned array is reused by next call
+         */
+        byte[] sign(String value, int length) {
+            if (buffer.length < length) {
+                buffer = new byte[Math.max(length, buffer.length * 2)];
+            }
+
+            for (int i = 0; i < length; i++) {
+                buffer[i] = (byte) value.charAt(i);
+            }
+
+            mac.update(buffer, 0, length);
+            try {
+                mac.doFinal(signature, 0);
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException(ex);
+            }
+
+            return signature;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package olizarovich.probation.rest.security;
+
+import olizarovich.probation.rest.exceptions.LoginAttemptsExceededException;
+import olizarovich.probation.rest.exceptions.PasswordHashingBusyException;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+/**
+ * Counts login attempts per username and per client address before delegating to provider.
+ * Attempts over limit are rejected before password is hashed.
+ * Rejected hashing is passed to failure handler as PasswordHashingBusyException, even if provider wrapped it.
+ */
+public class ThrottlingAuthenticationProvider implements AuthenticationProvider {
+    private final AuthenticationProvider delegate;
+
+    private final LoginThrottle usernameThrottle;
+
+    private final LoginThrottle addressThrottle;
+
+    public ThrottlingAuthenticationProvider(AuthenticationProvider delegate,
+                                            LoginThrottle usernameThrottle,
+                                            LoginThrottle addressThrottle) {
+        this.delegate = delegate;
+        this.usernameThrottle = usernameThrottle;
+        this.addressThrottle = addressThrottle;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        boolean usernameAllowed = usernameThrottle.tryAcquire(authentication.getName());
+        boolean addressAllowed = true;
+
+        if (authentication.getDetails() instanceof WebAuthenticationDetails) {
+            String address = ((WebAuthenticationDetails) authentication.getDetails()).getRemoteAddress();
+            addressAllowed = address == null || addressThrottle.tryAcquire(address);
+        }
+
+        if (!usernameAllowed || !addressAllowed) {
+            throw new LoginAttemptsExceededException();
+        }
+
+        try {
+            return delegate.authenticate(authentication);
+        } catch (InternalAuthenticationServiceException ex) {
+            /*
+             * Hashing of unknown username, e.g. by timing attack protection, is done while user is loaded,
+             * so provider wraps its exceptions
+             */
+            if (ex.getCause() instanceof PasswordHashingBusyException) {
+                throw (PasswordHashingBusyException) ex.getCause();
+            }
+
+            throw ex;
+        }
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+}
@@ -0,0 +1,36 @@
+package olizarovich.probation.rest.security;
+
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+
+/**
+ * Authentication created from verified signed token. Principal is username, credentials are not kept
+ */
+public class TokenAuthentication extends AbstractAuthenticationToken {
+    private final Integer personId;
+
+    private final String username;
+
+    public TokenAuthentication(Integer personId, String username, List<GrantedAuthority> authorities) {
+        super(authorities);
+        this.personId = personId;
+        this.username = username;
+        setAuthenticated(true);
+    }
+
+    public Integer getPersonId() {
+        return personId;
+    }
+
+    @Override
+    public Object getCredentials() {
+        return null;
+    }
+
+    @Override
+    public Object getPrincipal() {
+        return username;
+    }
+}
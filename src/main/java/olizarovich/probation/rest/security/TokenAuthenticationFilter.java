@@ -0,0 +1,44 @@
+package olizarovich.probation.rest.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Authenticates request by signed token from "Authorization: Bearer" header.
+ * Request without valid token stays anonymous and is checked by usual access rules.
+ */
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+    /**
+     * Prefix of authorization header value
+     */
+    public static final String BEARER = "Bearer ";
+
+    private final SignedTokenService tokenService;
+
+    public TokenAuthenticationFilter(SignedTokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+
+        if (header != null && header.startsWith(BEARER)) {
+            TokenAuthentication authentication = tokenService.verify(header.substring(BEARER.length()));
+
+            if (authentication != null) {
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
+        }
+
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,151 @@
+package olizarovich.probation.rest.security;
+
+import olizarovich.probation.rest.models.Person;
+import olizarovich.probation.rest.models.Role;
+import org.ehcache.Cache;
+import org.ehcache.CacheManager;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.CacheManagerBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of authentication data keyed by username.
+ * Holds username, password hash and immutable authority list of every cached person,
+ * so authentication does not load person and roles from database.
+ * Entries expire after time to live and should be evicted when person or his roles are changed.
+ */
+public class UserDetailsCache implements DisposableBean {
+    private static final String cacheName = "users";
+
+    private final CacheManager cacheManager;
+
+    private final Cache<String, CachedUser> cache;
+
+    /**
+     * @param maxEntries Maximum number of cached users
+     * @param timeToLive Time after which cached user is loaded again
+     */
+    public UserDetailsCache(long maxEntries, Duration timeToLive) {
+        cacheManager = CacheManagerBuilder.newCacheManagerBuilder()
+                .withCache(cacheName, CacheConfigurationBuilder
+                        .newCacheConfigurationBuilder(String.class, CachedUser.class, ResourcePoolsBuilder.heap(maxEntries))
+                        .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(timeToLive)))
+                .build(true);
+        cache = cacheManager.getCache(cacheName, String.class, CachedUser.class);
+    }
+
+    /**
+     * Returns cached user details or loads person and caches it.
+     * Every call returns new UserDetails, because Spring Security erases credentials of authenticated user.
+     *
+     * @param username Username to find
+     * @param loader   Loads person with roles, returns null if person does not exist
+     * @return User details or null if person does not exist
+     */
+    public UserDetails get(String username, Function<String, Person> loader) {
+        CachedUser user = cache.get(username);
+
+        if (user == null) {
+            Person person = loader.apply(username);
+
+            if (person == null) {
+                return null;
+            }
+
+            user = new CachedUser(person);
+            cache.putIfAbsent(username, user);
+        }
+
+        return user.toUserDetails();
+    }
+
+    /**
+     * Evicts user now and after transaction completion,
+     * so concurrent authentication can not put old user back into cache
+     *
+     * @param username Username of changed person
+     */
+    public void evict(String username) {
+        if (username == null) {
+            return;
+        }
+
+        cache.remove(username);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.remove(username);
+                }
+            });
+        }
+    }
+
+    /**
+     * Evicts all users. Used when all persons are changed at once
+     */
+    public void evictAll() {
+        cache.clear();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.clear();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void destroy() {
+        cacheManager.close();
+    }
+
+    /**
+     * Immutable authentication data of one person
+     */
+    private static class CachedUser {
+        private final Integer personId;
+
+        private final String username;
+
+        private final String password;
+
+        private final List<GrantedAuthority> authorities;
+
+        CachedUser(Person person) {
+            Set<GrantedAuthority> roles = new LinkedHashSet<>();
+            if (person.getRoles() != null) {
+                for (Role role : person.getRoles()) {
+                    roles.add(new SimpleGrantedAuthority(role.getRole()));
+                }
+            }
+
+            this.personId = person.getId();
+            this.username = person.getUsername();
+            this.password = person.getPassword();
+            this.authorities = Collections.unmodifiableList(new ArrayList<>(roles));
+        }
+
+        UserDetails toUserDetails() {
+            return new PersonDetails(personId, username, password, authorities);
+        }
+    }
+}
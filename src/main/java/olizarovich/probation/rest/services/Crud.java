@@ -1,8 +1,13 @@
 package olizarovich.probation.rest.services;
 
+import olizarovich.probation.rest.queries.CursorPage;
+import olizarovich.probation.rest.queries.SearchQuery;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Interface for basic CRUD operations
@@ -34,31 +39,71 @@ public interface Crud<T, ID> {
 
     void deleteAll();
 
+    /**
+     * Soft deletes entities with giving ids by set based update
+     *
+     * @param ids Ids of entities
+     * @return Number of deleted entities
+     */
+    int deleteAllById(Collection<ID> ids);
+
+    /**
+     * Restores soft deleted entities with giving ids by set based update
+     *
+     * @param ids Ids of entities
+     * @return Number of restored entities
+     */
+    int restoreAllById(Collection<ID> ids);
+
     T update(T entity, ID ids);
 
     /**
-     * Searching for soft deleted entities only
+     * Searching entities matching query
      *
-     * @return Interface for further settings
+     * @param query Filter, sort and page settings
+     * @return Entities that matches query
      */
-    Crud<T, ID> searchOnlyInDeleted();
+    Iterable<T> findAll(SearchQuery<T> query);
 
     /**
-     * Searching for soft deleted entities only
+     * Searching one page of entities matching query.
+     * For keyset query also creates cursor to the next page
      *
-     * @return Interface for further settings
+     * @param query Filter, sort and page settings
+     * @return Page of entities that matches query
      */
-    Crud<T, ID> setPage(int page, int size);
+    CursorPage<T> findPage(SearchQuery<T> query);
 
     /**
-     * Searching for soft deleted and not deleted entities
+     * Reading all entities matching query one by one through database cursor.
+     * Page and cursor settings of query are ignored
      *
-     * @return Interface for further settings
+     * @param query  Filter and sort settings
+     * @param action Called for every entity, entity should not be kept after it returns
      */
-    Crud<T, ID> includeDeleted();
+    void forEach(SearchQuery<T> query, Consumer<? super T> action);
 
     /**
-     * Clearing search filter
+     * Reading export fields of all entities matching query through database cursor.
+     * Entities are not created, page and cursor settings of query are ignored
+     *
+     * @param query  Filter and sort settings
+     * @param action Called for every row with values in order of export fields
+     */
+    void export(SearchQuery<T> query, Consumer<? super Object[]> action);
+
+    /**
+     * Fields written by export. Nested fields are separated by dot
+     *
+     * @return Field paths in column order
+     */
+    List<String> getExportFields();
+
+    /**
+     * Counting entities matching query
+     *
+     * @param query Filter settings
+     * @return Number of entities that matches query
      */
-    void clearFilter();
+    long count(SearchQuery<T> query);
 }
@@ -1,42 +1,84 @@
 package olizarovich.probation.rest.services;
 
+import olizarovich.probation.rest.models.BatchResult;
 import olizarovich.probation.rest.models.Document;
-import org.springframework.data.domain.Page;
+import olizarovich.probation.rest.models.DocumentView;
+import olizarovich.probation.rest.queries.CursorPage;
+import olizarovich.probation.rest.queries.SearchQuery;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 public interface DocumentService extends Crud<Document, Integer> {
-    DocumentService setSort(DocumentService.DocumentSort sort);
-
-    DocumentService filterByTitle(String title);
-
-    DocumentService filterByStatus(String status);
-
-    DocumentService filterByCreationDate(LocalDate date);
-
-    DocumentService filterByCreationDateMoreThan(LocalDate date);
-
-    DocumentService filterByCreationDateLessThan(LocalDate date);
-
-    DocumentService filterByExecutionDate(LocalDate date);
-
-    DocumentService filterByExecutionDateMoreThan(LocalDate date);
-
-    DocumentService filterByExecutionDateLessThan(LocalDate date);
+    /**
+     * Full text search over title, status, customer and executor names.
+     * Documents are ordered by relevance. Page size is limited by SearchQuery.MAX_PAGE_SIZE.
+     * Every matching document is ranked, so no match is hidden from later pages.
+     *
+     * @param text   Words to search
+     * @param cursor Cursor from previous page. Null or empty for first page
+     * @param size   Number of documents on page
+     * @return Page of found documents with cursor to the next page
+     * @throws IllegalArgumentException if text is empty or cursor is invalid
+     */
+    CursorPage<Document> search(String text, String cursor, int size);
 
-    DocumentService filterByCustomerId(int id);
+    /**
+     * Searching one page of read only documents. Selects only exposed columns,
+     * customer and executor are flat summaries. Page and cursor are handled like in findPage.
+     *
+     * @param query Filter, sort and page settings
+     * @return Page of documents with cursor to the next page
+     */
+    CursorPage<DocumentView> findViewPage(SearchQuery<Document> query);
 
-    DocumentService filterByCustomerFirstName(String firstName);
+    /**
+     * Searching one page of read only documents with only giving fields.
+     * Other fields are not selected and customer or executor are not joined unless requested.
+     *
+     * @param query  Filter, sort and page settings
+     * @param fields Fields of DocumentView.FIELDS, all fields if empty
+     * @return Page of documents with cursor to the next page
+     */
+    CursorPage<DocumentView> findViewPage(SearchQuery<Document> query, Set<String> fields);
 
-    DocumentService filterByCustomerLastName(String lastName);
+    /**
+     * Searching read only document with only giving fields, deleted document is also found
+     *
+     * @param id     Id of document
+     * @param fields Fields of DocumentView.FIELDS, all fields if empty
+     * @return Document or empty if it does not exist
+     */
+    Optional<DocumentView> findViewById(Integer id, Set<String> fields);
 
-    DocumentService filterByExecutorId(int id);
+    /**
+     * Maximum number of documents in one batch
+     */
+    int MAX_BATCH_SIZE = 10000;
 
-    DocumentService filterByExecutorFirstName(String firstName);
+    /**
+     * Saves new documents in JDBC batches. Every document is checked by verifyEntity
+     * and by existence of customer and executor, incorrect documents are skipped.
+     *
+     * @param documents Documents to save
+     * @return Result for every document in the same order
+     * @throws IllegalArgumentException if batch is empty or larger than MAX_BATCH_SIZE
+     */
+    List<BatchResult> saveBatch(List<Document> documents);
 
-    DocumentService filterByExecutorLastName(String lastName);
+    /**
+     * Changes status of all documents matching query filter with one UPDATE statement.
+     * Sort and page settings of query are ignored.
+     *
+     * @param query  Filter of documents to change
+     * @param status New status
+     * @return Number of changed documents
+     * @throws IllegalArgumentException if status is empty or query has no filter
+     */
+    int updateStatus(SearchQuery<Document> query, String status);
 
     /**
      * Sorting option for Document entity
@@ -1,29 +1,46 @@
 package olizarovich.probation.rest.services;
 
 import olizarovich.probation.rest.models.Person;
-import org.springframework.data.domain.Page;
+import olizarovich.probation.rest.models.PersonView;
+import olizarovich.probation.rest.queries.CursorPage;
+import olizarovich.probation.rest.queries.SearchQuery;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDate;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 public interface PersonService extends Crud<Person, Integer>, UserDetailsService {
-    PersonService setSort(PersonService.PersonSort sort);
-
     Person findByUsername(String username);
 
-    PersonService filterByUsername(String username);
-
-    PersonService filterByFirstName(String firstName);
-
-    PersonService filterByLastName(String lastName);
-
-    PersonService filterByBirthDate(LocalDate date);
+    /**
+     * Searching one page of read only persons. Selects only exposed columns,
+     * roles of the whole page are loaded with one more query. Page and cursor are handled like in findPage.
+     *
+     * @param query Filter, sort and page settings
+     * @return Page of persons with cursor to the next page
+     */
+    CursorPage<PersonView> findViewPage(SearchQuery<Person> query);
 
-    PersonService filterByBirthDateMoreThan(LocalDate date);
+    /**
+     * Searching one page of read only persons with only giving fields.
+     * Other fields are not selected and roles are not loaded unless requested.
+     *
+     * @param query  Filter, sort and page settings
+     * @param fields Fields of PersonView.FIELDS, all fields if empty
+     * @return Page of persons with cursor to the next page
+     */
+    CursorPage<PersonView> findViewPage(SearchQuery<Person> query, Set<String> fields);
 
-    PersonService filterByBirthDateLessThan(LocalDate date);
+    /**
+     * Searching read only person with only giving fields, deleted person is also found
+     *
+     * @param id     Id of person
+     * @param fields Fields of PersonView.FIELDS, all fields if empty
+     * @return Person or empty if it does not exist
+     */
+    Optional<PersonView> findViewById(Integer id, Set<String> fields);
 
     /**
      * Sorting option for Person entity
@@ -1,18 +1,27 @@
 package olizarovich.probation.rest.services.implementation;
 
+import olizarovich.probation.rest.queries.CursorPage;
+import olizarovich.probation.rest.queries.SearchQuery;
 import olizarovich.probation.rest.repositories.CrudSoftDeleteRepository;
+import olizarovich.probation.rest.repositories.Projection;
 import olizarovich.probation.rest.services.Crud;
-import olizarovich.probation.rest.specifications.SpecificationsBuilder;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 
 /**
- * Abstract class. Implementing base CRUD operations
+ * Abstract class. Implementing base CRUD operations.
+ * Keeps no search state, all search settings are passed in SearchQuery.
  *
  * @param <T>  Entity type
  * @param <ID> Id type
@@ -20,32 +29,19 @@ import java.util.Optional;
 @Service
 public abstract class CrudImplementation<T, ID> implements Crud<T, ID> {
     /**
-     * Repository with soft deletion
-     */
-    protected CrudSoftDeleteRepository<T, ID> repository;
-
-    /**
-     * Contains sort type. If null not used if search.
+     * Number of rows fetched from database at once while reading through cursor
      */
-    protected Pageable pageable = PageRequest.of(0, Integer.MAX_VALUE);
+    private static final int scrollFetchSize = 500;
 
     /**
-     * Contains sort type. If null not used if search.
+     * Number of rows fetched from database at once by export, rows of export have only few columns
      */
-    protected Sort sort = null;
+    private static final int exportFetchSize = 2000;
 
     /**
-     * Flag for searching softDeleted entities.
-     * If false searching only not deleted entities.
-     * If true searching only deleted entities.
-     * If null searching both not deleted and deleted entities.
-     */
-    protected Boolean searchForDeleted = false;
-
-    /**
-     * Contains filter for search query.
+     * Repository with soft deletion
      */
-    protected SpecificationsBuilder<T> specificationsBuilder = new SpecificationsBuilder<>();
+    protected CrudSoftDeleteRepository<T, ID> repository;
 
     @Override
     public T save(T entity) {
@@ -78,17 +74,152 @@ public abstract class CrudImplementation<T, ID> implements Crud<T, ID> {
     }
 
     /**
-     * Searching entities. Building filter and uses sort (if needed).
+     * Searching not deleted entities.
      *
-     * @return All entities in database that matches filter
+     * @return All not deleted entities in database
      */
     @Override
     public Iterable<T> findAll() {
-        setDeletedSearch();
-        Specification<T> specification = specificationsBuilder.build();
-        clearFilter();
+        return findAll(defaultQuery());
+    }
 
-        return repository.findAll(specification, pageable);
+    /**
+     * Searching entities. Uses query filter, sort and page (if needed).
+     * Page is selected without counting all matching entities.
+     *
+     * @param query Filter, sort and page settings
+     * @return All entities in database that matches query
+     */
+    @Override
+    public Iterable<T> findAll(SearchQuery<T> query) {
+        if (query.getPageable().isPaged()) {
+            return repository.findSlice(query.getSpecification(), query.getPageable());
+        }
+
+        if (query.getSort().isSorted()) {
+            return repository.findAll(query.getSpecification(), query.getSort());
+        }
+
+        return repository.findAll(query.getSpecification());
+    }
+
+    /**
+     * Searching one page of entities without count query.
+     * If query uses keyset pagination and next page exists creates cursor to it.
+     *
+     * @param query Filter, sort and page settings
+     * @return Page of entities that matches query
+     */
+    @Override
+    public CursorPage<T> findPage(SearchQuery<T> query) {
+        if (query.getPageable().isUnpaged()) {
+            List<T> content = new ArrayList<>();
+            findAll(query).forEach(content::add);
+            return new CursorPage<>(content, null);
+        }
+
+        return keysetPage(query, repository.findSlice(query.getSpecification(), query.getPageable()),
+                repository::findSlice);
+    }
+
+    /**
+     * Reading entities through forward only cursor, so memory does not depend on number of entities.
+     * Entities are read in query sort order, page and cursor position are ignored.
+     *
+     * @param query  Filter and sort settings
+     * @param action Called for every entity
+     */
+    @Override
+    public void forEach(SearchQuery<T> query, Consumer<? super T> action) {
+        repository.scrollAll(query.getFilter(), query.getSort(), scrollFetchSize, action);
+    }
+
+    /**
+     * Reading only export fields through forward only cursor, so persistence context stays empty
+     * and memory does not depend on number of rows.
+     *
+     * @param query  Filter and sort settings
+     * @param action Called for every row
+     */
+    @Override
+    public void export(SearchQuery<T> query, Consumer<? super Object[]> action) {
+        repository.scrollFields(query.getFilter(), query.getSort(), getExportFields(), exportFetchSize, action);
+    }
+
+    /**
+     * Searching one page of projections without count query. Only columns of projection are selected.
+     * If query uses keyset pagination and next page exists creates cursor to it.
+     *
+     * @param query      Filter, sort and page settings
+     * @param projection Selected columns and projection class
+     * @param <P>        Projection type
+     * @return Page of projections of entities that matches query
+     */
+    protected <P> CursorPage<P> findPage(SearchQuery<T> query, Projection<T, P> projection) {
+        if (query.getPageable().isUnpaged()) {
+            return new CursorPage<>(repository.findAll(query.getSpecification(), query.getSort(), projection), null);
+        }
+
+        return keysetPage(query, repository.findSlice(query.getSpecification(), query.getPageable(), projection),
+                (specification, pageable) -> repository.findSlice(specification, pageable, projection));
+    }
+
+    /**
+     * Creates cursor to the next page if query uses keyset pagination.
+     * Page after a sort value selects only not null values, when they run out the rest of the page
+     * is read from entities with null sort value, which are the last ones.
+     *
+     * @param query  Filter, sort and page settings
+     * @param slice  Page selected by query specification
+     * @param finder Selects page by another specification
+     * @param <E>    Entity or projection type
+     * @return Page with cursor to the next one
+     */
+    private <E> CursorPage<E> keysetPage(SearchQuery<T> query, Slice<E> slice,
+                                         BiFunction<Specification<T>, Pageable, Slice<E>> finder) {
+        List<E> content = slice.getContent();
+        boolean hasNext = slice.hasNext();
+
+        if (!hasNext && query.getNullsSpecification() != null) {
+            int remaining = query.getPageable().getPageSize() - content.size();
+            Slice<E> nulls = finder.apply(query.getNullsSpecification(),
+                    query.getNullsPageable(Math.max(remaining, 1)));
+
+            if (remaining > 0) {
+                content = new ArrayList<>(content);
+                content.addAll(nulls.getContent());
+                hasNext = nulls.hasNext();
+            } else {
+                hasNext = nulls.hasContent();
+            }
+        }
+
+        String next = null;
+        if (query.isKeyset() && hasNext) {
+            next = query.nextCursor(content.get(content.size() - 1));
+        }
+
+        return new CursorPage<>(content, next);
+    }
+
+    /**
+     * Adds fields needed for cursor to requested fields: id and field of sort order.
+     * For sort by field of association the whole association is added.
+     *
+     * @param query  Query with sort settings
+     * @param fields Requested fields
+     * @return New set of fields to select
+     */
+    protected Set<String> withCursorFields(SearchQuery<T> query, Set<String> fields) {
+        Set<String> result = new LinkedHashSet<>(fields);
+        result.add("id");
+
+        if (query.getSortOrder() != null) {
+            int dot = query.getSortOrder().indexOf('.');
+            result.add(dot < 0 ? query.getSortOrder() : query.getSortOrder().substring(0, dot));
+        }
+
+        return result;
     }
 
     @Override
@@ -97,16 +228,24 @@ public abstract class CrudImplementation<T, ID> implements Crud<T, ID> {
     }
 
     /**
-     * Counting entities. Building filter and uses it.
+     * Counting not deleted entities.
      *
-     * @return Number of entities in database that matches filter
+     * @return Number of not deleted entities in database
      */
     @Override
     public long count() {
-        setDeletedSearch();
-        Specification<T> specification = specificationsBuilder.build();
-        clearFilter();
-        return repository.count(specification);
+        return count(defaultQuery());
+    }
+
+    /**
+     * Counting entities. Uses query filter, cursor position is ignored.
+     *
+     * @param query Filter settings
+     * @return Number of entities in database that matches query
+     */
+    @Override
+    public long count(SearchQuery<T> query) {
+        return repository.count(query.getFilter());
     }
 
     @Override
@@ -130,26 +269,21 @@ public abstract class CrudImplementation<T, ID> implements Crud<T, ID> {
     }
 
     @Override
-    public Crud<T, ID> searchOnlyInDeleted() {
-        searchForDeleted = true;
-        return this;
-    }
+    public int deleteAllById(Collection<ID> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("Ids are empty");
+        }
 
-    @Override
-    public Crud<T, ID> includeDeleted() {
-        searchForDeleted = null;
-        return this;
+        return repository.softDeleteAllById(ids);
     }
 
-    /**
-     * Resets all filter and sort settings
-     */
     @Override
-    public void clearFilter() {
-        specificationsBuilder = new SpecificationsBuilder<>();
-        sort = null;
-        pageable = PageRequest.of(0, Integer.MAX_VALUE);
-        searchForDeleted = false;
+    public int restoreAllById(Collection<ID> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("Ids are empty");
+        }
+
+        return repository.restoreAllById(ids);
     }
 
     @Override
@@ -163,26 +297,12 @@ public abstract class CrudImplementation<T, ID> implements Crud<T, ID> {
         return save(entity);
     }
 
-    public Crud<T, ID> setPage(int page, int size) {
-        if (sort != null)
-            pageable = PageRequest.of(page, size, sort);
-        else
-            pageable = PageRequest.of(page, size);
-
-        return this;
-    }
-
     /**
-     * Setting isDeleted flag to specification.
-     * If false searching only not deleted entities.
-     * If true searching only deleted entities.
-     * If null searching both not deleted and deleted entities.
+     * Creates query without filters. Searching only not deleted entities.
+     *
+     * @return Default query
      */
-    protected void setDeletedSearch() {
-        if (searchForDeleted != null) {
-            specificationsBuilder.with("isDeleted", ":", searchForDeleted);
-        }
-    }
+    protected abstract SearchQuery<T> defaultQuery();
 
     public abstract boolean verifyEntity(T entity);
 }
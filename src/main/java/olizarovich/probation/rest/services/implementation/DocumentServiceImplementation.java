@@ -1,146 +1,241 @@
 package olizarovich.probation.rest.services.implementation;
 
 import olizarovich.probation.rest.exceptions.DocumentNotFoundException;
+import olizarovich.probation.rest.models.BatchResult;
 import olizarovich.probation.rest.models.Document;
+import olizarovich.probation.rest.models.DocumentView;
+import olizarovich.probation.rest.queries.Cursor;
+import olizarovich.probation.rest.queries.CursorPage;
+import olizarovich.probation.rest.queries.DocumentQuery;
+import olizarovich.probation.rest.queries.SearchQuery;
 import olizarovich.probation.rest.repositories.DocumentRepository;
 import olizarovich.probation.rest.services.DocumentService;
-import org.springframework.boot.autoconfigure.data.web.SpringDataWebProperties;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
- * Implement DocumentService interface. Providing sorting and filter settings.
- * Providing pagination in service
+ * Implement DocumentService interface.
+ * Sorting, filter and pagination settings are passed in DocumentQuery
  */
 @Repository
 public class DocumentServiceImplementation extends CrudImplementation<Document, Integer> implements DocumentService {
+    /**
+     * Sort order written into full text search cursors
+     */
+    private static final String rankOrder = "rank";
+
+    /**
+     * Number of documents flushed at once by batch save
+     */
+    private static final int batchChunkSize = 500;
+
+    /**
+     * Status field changed by bulk update
+     */
+    private static final String statusField = "status";
+
+    /**
+     * Columns of export. Customer and executor are exported by id, so export does not join persons
+     */
+    private static final List<String> exportFields = Collections.unmodifiableList(Arrays.asList(
+            "id", "title", "status", "creationDate", "executionPeriod", "customer.id", "executor.id", "isDeleted"));
+
+    private final DocumentRepository documentRepository;
 
     public DocumentServiceImplementation(DocumentRepository repository) {
         this.repository = repository;
+        this.documentRepository = repository;
     }
 
+    /**
+     * Selects ids and ranks of one page plus one to check next page.
+     * Every page ranks all matches, so pages are ordered by relevance across all documents.
+     * Then loads documents of the page by ids and keeps rank order.
+     */
     @Override
-    public Document update(Document document, Integer ids) {
-        boolean entityIllegal = verifyEntity(document);
+    public CursorPage<Document> search(String text, String cursor, int size) {
+        if (text == null || text.trim().isEmpty()) {
+            throw new IllegalArgumentException("Search text is empty");
+        }
 
-        if (entityIllegal) {
-            throw new IllegalArgumentException();
+        if (size <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
         }
 
-        Document documentToUpdate = findById(ids).orElseThrow(() -> new DocumentNotFoundException(ids));
+        int limit = Math.min(size, SearchQuery.MAX_PAGE_SIZE);
+        List<DocumentRepository.SearchHit> hits;
 
-        documentToUpdate.setId(documentToUpdate.getId());
+        if (cursor == null || cursor.isEmpty()) {
+            hits = documentRepository.search(text, limit + 1);
+        } else {
+            Cursor position = Cursor.decode(cursor);
 
-        return super.save(document);
-    }
+            if (!rankOrder.equals(position.getSortOrder())) {
+                throw new IllegalArgumentException("Cursor was created for another sort order");
+            }
 
-    @Override
-    public DocumentService setSort(DocumentService.DocumentSort sort) {
-        pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(sort.getSortOrder()));
-        return this;
-    }
+            if (position.getValue() == null) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
 
-    @Override
-    public DocumentService filterByTitle(String title) {
-        if (!title.isEmpty())
-            specificationsBuilder.with("title", "~", title);
-        return this;
-    }
+            try {
+                hits = documentRepository.searchAfter(text, Float.parseFloat(position.getValue()),
+                        Integer.parseInt(position.getId()), limit + 1);
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
 
-    @Override
-    public DocumentService filterByStatus(String status) {
-        if (!status.isEmpty())
-            specificationsBuilder.with("status", "~", status);
-        return this;
-    }
+        boolean hasNext = hits.size() > limit;
+        if (hasNext) {
+            hits = hits.subList(0, limit);
+        }
 
-    @Override
-    public DocumentService filterByCreationDate(LocalDate date) {
-        if (date != null)
-            specificationsBuilder.with("creationDate", ":", date);
-        return this;
-    }
+        Map<Integer, Document> found = documentRepository.findAllById(
+                hits.stream().map(DocumentRepository.SearchHit::getId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Document::getId, Function.identity()));
 
-    @Override
-    public DocumentService filterByCreationDateMoreThan(LocalDate date) {
-        if (date != null)
-            specificationsBuilder.with("creationDate", ">", date);
-        return this;
-    }
+        List<Document> content = hits.stream()
+                .map(i -> found.get(i.getId()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
 
-    @Override
-    public DocumentService filterByCreationDateLessThan(LocalDate date) {
-        if (date != null)
-            specificationsBuilder.with("creationDate", "<", date);
-        return this;
-    }
+        String next = null;
+        if (hasNext) {
+            DocumentRepository.SearchHit last = hits.get(hits.size() - 1);
+            next = new Cursor(rankOrder, last.getRank(), last.getId()).encode();
+        }
 
-    @Override
-    public DocumentService filterByExecutionDate(LocalDate date) {
-        if (date != null)
-            specificationsBuilder.with("executionDate", ":", date);
-        return this;
+        return new CursorPage<>(content, next);
     }
 
+    /**
+     * Checks all documents first, then persons of all documents in one query.
+     * Correct documents are inserted with ids from sequence, so Hibernate sends them in JDBC batches.
+     */
     @Override
-    public DocumentService filterByExecutionDateMoreThan(LocalDate date) {
-        if (date != null)
-            specificationsBuilder.with("executionDate", ">", date);
-        return this;
+    public List<BatchResult> saveBatch(List<Document> documents) {
+        if (documents == null || documents.isEmpty()) {
+            throw new IllegalArgumentException("Batch is empty");
+        }
+
+        if (documents.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch is larger than " + MAX_BATCH_SIZE + " documents");
+        }
+
+        Set<Integer> personIds = new HashSet<>();
+        for (Document i : documents) {
+            if (i != null && !verifyEntity(i)) {
+                personIds.add(i.getCustomer().getId());
+                personIds.add(i.getExecutor().getId());
+            }
+        }
+
+        Set<Integer> existingPersons = personIds.isEmpty()
+                ? new HashSet<>() : new HashSet<>(documentRepository.findExistingPersonIds(personIds));
+
+        BatchResult[] results = new BatchResult[documents.size()];
+        List<Document> toSave = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+
+        for (int i = 0; i < documents.size(); i++) {
+            Document document = documents.get(i);
+
+            if (document == null || verifyEntity(document)) {
+                results[i] = BatchResult.failed(i, "Incorrect entity");
+            } else if (document.getId() != null) {
+                results[i] = BatchResult.failed(i, "Document in batch should not have id");
+            } else if (!existingPersons.contains(document.getCustomer().getId())
+                    || !existingPersons.contains(document.getExecutor().getId())) {
+                results[i] = BatchResult.failed(i, "Customer or executor not found");
+            } else {
+                document.setDeleted(false);
+                toSave.add(document);
+                positions.add(i);
+            }
+        }
+
+        if (!toSave.isEmpty()) {
+            List<Document> saved = documentRepository.saveInChunks(toSave, batchChunkSize);
+
+            for (int i = 0; i < saved.size(); i++) {
+                results[positions.get(i)] = BatchResult.saved(positions.get(i), saved.get(i).getId());
+            }
+        }
+
+        return Arrays.asList(results);
     }
 
     @Override
-    public DocumentService filterByExecutionDateLessThan(LocalDate date) {
-        if (date != null)
-            specificationsBuilder.with("executionDate", "<", date);
-        return this;
+    public int updateStatus(SearchQuery<Document> query, String status) {
+        if (status == null || status.isEmpty()) {
+            throw new IllegalArgumentException("Status is empty");
+        }
+
+        if (!query.isFiltered()) {
+            throw new IllegalArgumentException("At least one filter is required");
+        }
+
+        return documentRepository.updateAll(query.getFilter(), statusField, status);
     }
 
     @Override
-    public DocumentService filterByCustomerId(int id) {
-        if (id > -1)
-            specificationsBuilder.with("customer.id", ":", id);
-        return this;
+    public Document update(Document document, Integer ids) {
+        boolean entityIllegal = verifyEntity(document);
+
+        if (entityIllegal) {
+            throw new IllegalArgumentException();
+        }
+
+        Document documentToUpdate = findById(ids).orElseThrow(() -> new DocumentNotFoundException(ids));
+
+        documentToUpdate.setId(documentToUpdate.getId());
+
+        return super.save(document);
     }
 
     @Override
-    public DocumentService filterByCustomerFirstName(String firstName) {
-        if (!firstName.isEmpty())
-            specificationsBuilder.with("customer.firstName", "~", firstName);
-        return this;
+    public CursorPage<DocumentView> findViewPage(SearchQuery<Document> query) {
+        return findPage(query, DocumentView.projection);
     }
 
     @Override
-    public DocumentService filterByCustomerLastName(String lastName) {
-        if (!lastName.isEmpty())
-            specificationsBuilder.with("customer.lastName", "~", lastName);
-        return this;
+    public CursorPage<DocumentView> findViewPage(SearchQuery<Document> query, Set<String> fields) {
+        if (fields.isEmpty()) {
+            return findViewPage(query);
+        }
+
+        return findPage(query, DocumentView.projection(withCursorFields(query, fields)));
     }
 
     @Override
-    public DocumentService filterByExecutorId(int id) {
-        if (id > -1)
-            specificationsBuilder.with("executor.id", ":", id);
-        return this;
+    public Optional<DocumentView> findViewById(Integer id, Set<String> fields) {
+        DocumentQuery query = DocumentQuery.builder().filterById(id).includeDeleted().build();
+        List<DocumentView> found = findViewPage(query, fields).getContent();
+
+        return found.isEmpty() ? Optional.empty() : Optional.of(found.get(0));
     }
 
     @Override
-    public DocumentService filterByExecutorFirstName(String firstName) {
-        if (!firstName.isEmpty())
-            specificationsBuilder.with("executor.firstName", "~", firstName);
-        return this;
+    public List<String> getExportFields() {
+        return exportFields;
     }
 
     @Override
-    public DocumentService filterByExecutorLastName(String lastName) {
-        if (!lastName.isEmpty())
-            specificationsBuilder.with("executor.lastName", "~", lastName);
-        return this;
+    protected DocumentQuery defaultQuery() {
+        return DocumentQuery.builder().build();
     }
 
     @Override
@@ -2,48 +2,58 @@ package olizarovich.probation.rest.services.implementation;
 
 import olizarovich.probation.rest.exceptions.PersonNotFoundException;
 import olizarovich.probation.rest.models.Person;
+import olizarovich.probation.rest.models.PersonView;
+import olizarovich.probation.rest.queries.CursorPage;
 import olizarovich.probation.rest.models.Role;
+import olizarovich.probation.rest.queries.PersonQuery;
+import olizarovich.probation.rest.queries.SearchQuery;
 import olizarovich.probation.rest.repositories.PersonRepository;
 import olizarovich.probation.rest.repositories.RoleRepository;
+import olizarovich.probation.rest.security.UserDetailsCache;
 import olizarovich.probation.rest.services.PersonService;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 /**
- * Implement PersonService interface. Providing sorting and filter settings.
- * Providing pagination in service
+ * Implement PersonService interface.
+ * Sorting, filter and pagination settings are passed in PersonQuery.
+ * User details for authentication are cached and evicted when person is changed or soft deleted.
  */
 @Service
 public class PersonServiceImplementation extends CrudImplementation<Person, Integer>
         implements PersonService {
+    /**
+     * Columns of export. Password is never exported
+     */
+    private static final List<String> exportFields = Collections.unmodifiableList(Arrays.asList(
+            "id", "username", "firstName", "lastName", "birthDate", "isDeleted"));
 
     private PasswordEncoder bCryptPasswordEncoder;
     private RoleRepository roleRepository;
+    private UserDetailsCache userDetailsCache;
 
     public PersonServiceImplementation() {
     }
 
     public PersonServiceImplementation(PasswordEncoder bCryptPasswordEncoder,
                                        RoleRepository roleRepository,
-                                       PersonRepository personRepository) {
+                                       PersonRepository personRepository,
+                                       UserDetailsCache userDetailsCache) {
         this.bCryptPasswordEncoder = bCryptPasswordEncoder;
         this.roleRepository = roleRepository;
         this.repository = personRepository;
+        this.userDetailsCache = userDetailsCache;
     }
 
     @Override
@@ -58,6 +68,9 @@ public class PersonServiceImplementation extends CrudImplementation<Person, Inte
 
         person.setId(personToUpdate.getId());
 
+        userDetailsCache.evict(personToUpdate.getUsername());
+        userDetailsCache.evict(person.getUsername());
+
         return super.save(person);
     }
 
@@ -89,73 +102,114 @@ public class PersonServiceImplementation extends CrudImplementation<Person, Inte
         return person;
     }
 
+    /**
+     * Searching user details in cache. Person and roles are loaded from database only on cache miss
+     */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        Person person = ((PersonRepository) repository).findByUsername(username);
+        UserDetails user = userDetailsCache.get(username, ((PersonRepository) repository)::findByUsername);
 
-        if(person == null) {
+        if(user == null) {
             throw new UsernameNotFoundException("Person not found");
         }
 
-        List<GrantedAuthority> authorities = getUserAuthority(person.getRoles());
+        return user;
+    }
+
+    @Override
+    public void deleteById(Integer id) {
+        repository.findById(id).ifPresent(person -> userDetailsCache.evict(person.getUsername()));
 
-        return new User(person.getUsername(), person.getPassword(), authorities);
+        super.deleteById(id);
     }
 
-    private List<GrantedAuthority> getUserAuthority(Set<Role> userRoles) {
-        Set<GrantedAuthority> roles = new HashSet<GrantedAuthority>();
-        for (Role role : userRoles) {
-            roles.add(new SimpleGrantedAuthority(role.getRole()));
-        }
-        return new ArrayList<>(roles);
+    @Override
+    public void delete(Person person) {
+        userDetailsCache.evict(person.getUsername());
+
+        super.delete(person);
     }
 
     @Override
-    public PersonService setSort(PersonSort sort) {
-        this.pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(sort.getSortOrder()));
-        return this;
+    public void deleteAll(Iterable<Person> persons) {
+        persons.forEach(person -> userDetailsCache.evict(person.getUsername()));
+
+        super.deleteAll(persons);
     }
 
     @Override
-    public PersonService filterByFirstName(String firstName) {
-        if (!firstName.isEmpty())
-            specificationsBuilder.with("firstName", "~", firstName);
-        return this;
+    public void deleteAll() {
+        userDetailsCache.evictAll();
+
+        super.deleteAll();
     }
 
+    /**
+     * Usernames of deleted persons are not loaded, so all cached users are evicted
+     */
     @Override
-    public PersonService filterByUsername(String username) {
-        if (!username.isEmpty())
-            specificationsBuilder.with("username", ":", username);
-        return this;
+    public int deleteAllById(Collection<Integer> ids) {
+        userDetailsCache.evictAll();
+
+        return super.deleteAllById(ids);
     }
 
+    /**
+     * Searching page of persons projections, then roles of all persons on page with one query
+     */
+    @Override
+    public CursorPage<PersonView> findViewPage(SearchQuery<Person> query) {
+        return addRoles(findPage(query, PersonView.projection));
+    }
+
+    /**
+     * Searching page of persons projections with requested columns. Roles are loaded only if requested
+     */
     @Override
-    public PersonService filterByLastName(String lastName) {
-        if (!lastName.isEmpty())
-            specificationsBuilder.with("lastName", "~", lastName);
-        return this;
+    public CursorPage<PersonView> findViewPage(SearchQuery<Person> query, Set<String> fields) {
+        if (fields.isEmpty()) {
+            return findViewPage(query);
+        }
+
+        CursorPage<PersonView> page = findPage(query, PersonView.projection(withCursorFields(query, fields)));
+
+        return fields.contains("roles") ? addRoles(page) : page;
     }
 
     @Override
-    public PersonService filterByBirthDate(LocalDate date) {
-        if (date != null)
-            specificationsBuilder.with("birthDate", ":", date);
-        return this;
+    public Optional<PersonView> findViewById(Integer id, Set<String> fields) {
+        PersonQuery query = PersonQuery.builder().filterByIdIn(Collections.singletonList(id)).includeDeleted().build();
+        List<PersonView> found = findViewPage(query, fields).getContent();
+
+        return found.isEmpty() ? Optional.empty() : Optional.of(found.get(0));
+    }
+
+    /**
+     * Loads roles of all persons on page with one query
+     */
+    private CursorPage<PersonView> addRoles(CursorPage<PersonView> page) {
+        if (!page.getContent().isEmpty()) {
+            Map<Integer, PersonView> persons = new HashMap<>();
+            for (PersonView i : page.getContent()) {
+                persons.put(i.getId(), i);
+            }
+
+            for (Object[] i : roleRepository.findRoleNames(persons.keySet())) {
+                persons.get((Integer) i[0]).addRole((String) i[1]);
+            }
+        }
+
+        return page;
     }
 
     @Override
-    public PersonService filterByBirthDateMoreThan(LocalDate date) {
-        if (date != null)
-            specificationsBuilder.with("birthDate", ">", date);
-        return this;
+    public List<String> getExportFields() {
+        return exportFields;
     }
 
     @Override
-    public PersonService filterByBirthDateLessThan(LocalDate date) {
-        if (date != null)
-            specificationsBuilder.with("birthDate", "<", date);
-        return this;
+    protected PersonQuery defaultQuery() {
+        return PersonQuery.builder().build();
     }
 
     /**
@@ -0,0 +1,52 @@
+package olizarovich.probation.rest.specifications;
+
+/**
+ * Precompiled filter definition: field path and operation.
+ * Created once, then only binds values for each search.
+ *
+ * @param <T> Class in witch we searching
+ * @param <V> Type of filter value
+ */
+public final class FilterDescriptor<T, V> {
+    private final String key;
+    private final SearchOperation operation;
+    private final PathResolver<T> path;
+
+    private FilterDescriptor(String key, SearchOperation operation, PathResolver<T> path) {
+        this.key = key;
+        this.operation = operation;
+        this.path = path;
+    }
+
+    /**
+     * Creates filter definition
+     *
+     * @param key       Field name, used to combine filters of the same field
+     * @param operation Rules of searching
+     * @param path      Path to field, usually built with static metamodel
+     * @param <T>       Class in witch we searching
+     * @param <V>       Type of filter value
+     * @return Filter definition
+     */
+    public static <T, V> FilterDescriptor<T, V> of(String key, SearchOperation operation, PathResolver<T> path) {
+        return new FilterDescriptor<>(key, operation, path);
+    }
+
+    /**
+     * Creates criteria with giving value
+     *
+     * @param value Value to compare with
+     * @return Search criteria
+     */
+    public SearchCriteria bind(V value) {
+        return new SearchCriteria(key, operation, value, path);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public SearchOperation getOperation() {
+        return operation;
+    }
+}
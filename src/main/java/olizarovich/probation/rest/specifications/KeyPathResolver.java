@@ -0,0 +1,37 @@
+package olizarovich.probation.rest.specifications;
+
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves path by field name. Field name is split once when resolver is created.
+ *
+ * @param <T> Class in witch we searching
+ */
+class KeyPathResolver<T> implements PathResolver<T> {
+    private static final ConcurrentMap<String, KeyPathResolver<?>> cache = new ConcurrentHashMap<>();
+
+    private final String[] keyParts;
+
+    private KeyPathResolver(String key) {
+        this.keyParts = key.split("\\.");
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> KeyPathResolver<T> of(String key) {
+        return (KeyPathResolver<T>) cache.computeIfAbsent(key, KeyPathResolver::new);
+    }
+
+    @Override
+    public Path<?> resolve(Root<T> root) {
+        Path<?> expression = root.get(keyParts[0]);
+
+        for (int i = 1; i < keyParts.length; i++) {
+            expression = expression.get(keyParts[i]);
+        }
+
+        return expression;
+    }
+}
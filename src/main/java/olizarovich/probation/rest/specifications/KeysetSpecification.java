@@ -0,0 +1,135 @@
+package olizarovich.probation.rest.specifications;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.*;
+import java.time.LocalDate;
+
+/**
+ * Class for creation keyset pagination predicate.
+ * Selects entities placed after giving sort value and id in (sort field, id) order.
+ * Null sort values are placed after all other values, like in "order by ... nulls last",
+ * see hibernate.order_by.default_null_ordering. Predicate after a value selects only not null values,
+ * so it bounds index scan on (sort field, id). Nulls are selected by separate predicate
+ * when values run out, see {@link #nulls(String)}. Fields of associations are joined with outer join,
+ * so entities without association are not lost, existing join of the query is reused.
+ *
+ * @param <T> Class in witch we searching
+ */
+public class KeysetSpecification<T> implements Specification<T> {
+    private static final String idKey = "id";
+
+    private final String key;
+    private final String value;
+    private final String id;
+
+    /**
+     * @param key   Sort field. Foreign key separated by dot. Example "customer.lastName"
+     * @param value Sort field value of the last entity on previous page, null if it has no value
+     * @param id    Id of the last entity on previous page, null to select all entities with null value
+     */
+    public KeysetSpecification(String key, String value, String id) {
+        this.key = key;
+        this.value = value;
+        this.id = id;
+    }
+
+    /**
+     * Selects all entities with null sort value. Used after the last not null value
+     *
+     * @param key Sort field. Foreign key separated by dot. Example "customer.lastName"
+     * @param <T> Class in witch we searching
+     * @return Specification of null values
+     */
+    public static <T> KeysetSpecification<T> nulls(String key) {
+        return new KeysetSpecification<>(key, null, null);
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> criteriaQuery, CriteriaBuilder builder) {
+        Path<Comparable> idPath = root.get(idKey);
+        Comparable lastId = id == null ? null : convert(id, idPath.getJavaType());
+
+        if (idKey.equals(key)) {
+            return builder.greaterThan(idPath, lastId);
+        }
+
+        Path<Comparable> path = resolve(root);
+
+        /*
+         * Nulls are the last ones, so after null only nulls with greater id are left
+         */
+        if (value == null) {
+            Predicate nulls = builder.isNull(path);
+            return lastId == null ? nulls : builder.and(nulls, builder.greaterThan(idPath, lastId));
+        }
+
+        Comparable lastValue = convert(value, path.getJavaType());
+
+        /*
+         * Leading conjunct is a range on sort field, so database starts index scan at the cursor
+         */
+        return builder.and(
+                builder.greaterThanOrEqualTo(path, lastValue),
+                builder.or(builder.greaterThan(path, lastValue), builder.greaterThan(idPath, lastId)));
+    }
+
+    /**
+     * Resolves sort field joining associations with left join, like sort does.
+     * Left join already made by query, e.g. by projection, is reused
+     */
+    @SuppressWarnings("unchecked")
+    private Path<Comparable> resolve(Root<T> root) {
+        String[] parts = key.split("\\.");
+        if (parts.length == 1) {
+            return root.get(key);
+        }
+
+        From<?, ?> from = root;
+        for (int i = 0; i < parts.length - 1; i++) {
+            from = leftJoin(from, parts[i]);
+        }
+
+        return from.get(parts[parts.length - 1]);
+    }
+
+    private static From<?, ?> leftJoin(From<?, ?> from, String attribute) {
+        for (Join<?, ?> join : from.getJoins()) {
+            if (join.getAttribute().getName().equals(attribute) && join.getJoinType() == JoinType.LEFT) {
+                return join;
+            }
+        }
+
+        return from.join(attribute, JoinType.LEFT);
+    }
+
+    /**
+     * Converts value from cursor to field type
+     *
+     * @param value Value in string format
+     * @param type  Field type
+     * @return Value of field type
+     */
+    @SuppressWarnings("rawtypes")
+    private static Comparable convert(String value, Class<?> type) {
+        try {
+            if (String.class.equals(type)) {
+                return value;
+            }
+            if (Integer.class.equals(type) || int.class.equals(type)) {
+                return Integer.valueOf(value);
+            }
+            if (Long.class.equals(type) || long.class.equals(type)) {
+                return Long.valueOf(value);
+            }
+            if (LocalDate.class.equals(type)) {
+                return LocalDate.parse(value);
+            }
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+
+        throw new IllegalArgumentException("Cursor is not supported for " + type.getSimpleName());
+    }
+}
@@ -0,0 +1,30 @@
+package olizarovich.probation.rest.specifications;
+
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+
+/**
+ * Resolves path to entity field from query root.
+ * Created once per field, so search does not parse field names on every request.
+ *
+ * @param <T> Class in witch we searching
+ */
+@FunctionalInterface
+public interface PathResolver<T> {
+    /**
+     * @param root Query root
+     * @return Path to field
+     */
+    Path<?> resolve(Root<T> root);
+
+    /**
+     * Returns resolver for field name. Resolvers are cached by key.
+     *
+     * @param key Field name. Foreign key separated by dot. Example "customer.lastName"
+     * @param <T> Class in witch we searching
+     * @return Resolver for field
+     */
+    static <T> PathResolver<T> of(String key) {
+        return KeyPathResolver.of(key);
+    }
+}
@@ -0,0 +1,25 @@
+package olizarovich.probation.rest.specifications;
+
+/**
+ * Class for holding bounds of between operation. Both bounds are inclusive.
+ * Null bound means range is not limited from this side.
+ *
+ * @param <V> Type of field values
+ */
+public class Range<V extends Comparable<? super V>> {
+    private final V from;
+    private final V to;
+
+    public Range(V from, V to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    public V getFrom() {
+        return from;
+    }
+
+    public V getTo() {
+        return to;
+    }
+}
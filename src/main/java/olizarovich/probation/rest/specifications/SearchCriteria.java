@@ -1,44 +1,54 @@
 package olizarovich.probation.rest.specifications;
 
 /**
- * Class for holding criteria data
+ * Class for holding criteria data. Operation and field path are resolved when criteria is created.
  */
 public class SearchCriteria {
-    private String key;
-    private String operation;
-    private Object value;
-
-    public SearchCriteria() {
-
+    private final String key;
+    private final SearchOperation operation;
+    private final Object value;
+    private final PathResolver<?> path;
+
+    /**
+     * @param key       Field name. Foreign key separated by dot. Example "customer.lastName"
+     * @param operation Operation in string format, see SearchOperation
+     * @param value     Value to compare with
+     */
+    public SearchCriteria(String key, String operation, Object value) {
+        this(key, SearchOperation.getSimpleOperation(operation), value, PathResolver.of(key));
     }
 
-    public SearchCriteria(String key, String operation, Object value) {
+    public SearchCriteria(String key, SearchOperation operation, Object value, PathResolver<?> path) {
         this.key = key;
         this.operation = operation;
         this.value = value;
+        this.path = path;
     }
 
-    public String getKey() {
-        return key;
+    /**
+     * Creates criteria for the same field with another operation and value
+     *
+     * @param operation Rules of searching
+     * @param value     Value to compare with
+     * @return New criteria
+     */
+    public SearchCriteria with(SearchOperation operation, Object value) {
+        return new SearchCriteria(key, operation, value, path);
     }
 
-    public void setKey(String key) {
-        this.key = key;
+    public String getKey() {
+        return key;
     }
 
-    public String getOperation() {
+    public SearchOperation getOperation() {
         return operation;
     }
 
-    public void setOperation(String operation) {
-        this.operation = operation;
-    }
-
     public Object getValue() {
         return value;
     }
 
-    public void setValue(Object value) {
-        this.value = value;
+    public PathResolver<?> getPath() {
+        return path;
     }
 }
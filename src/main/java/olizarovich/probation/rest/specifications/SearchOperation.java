@@ -4,9 +4,9 @@ package olizarovich.probation.rest.specifications;
  * Class keeping possible search operations
  */
 public enum SearchOperation {
-    EQUALITY, NEGATION, GREATER_THAN, LESS_THAN, LIKE;
+    EQUALITY, NEGATION, GREATER_THAN, LESS_THAN, LIKE, BETWEEN, IN, NOT_IN;
     public static final String[] SIMPLE_OPERATION_SET =
-            {":", "!", ">", "<", "~"};
+            {":", "!", ">", "<", "~", "..", "in", "!in"};
 
     /**
      * Method for searching operations by given strin
@@ -26,6 +26,12 @@ public enum SearchOperation {
                 return LESS_THAN;
             case "~":
                 return LIKE;
+            case "..":
+                return BETWEEN;
+            case "in":
+                return IN;
+            case "!in":
+                return NOT_IN;
             default:
                 return null;
         }
@@ -3,8 +3,8 @@ package olizarovich.probation.rest.specifications;
 import org.springframework.data.jpa.domain.Specification;
 
 import javax.persistence.criteria.*;
-
-import static olizarovich.probation.rest.specifications.SearchOperation.getSimpleOperation;
+import java.util.Collection;
+import java.util.Locale;
 
 /**
  * Class for creation search predicate based of SearchCriteria
@@ -12,6 +12,8 @@ import static olizarovich.probation.rest.specifications.SearchOperation.getSimpl
  * @param <T> Class in witch we searching
  */
 public class SpecificationImplementation<T> implements Specification<T> {
+    private static final char likeEscape = '\\';
+
     private SearchCriteria criteria;
 
     public SpecificationImplementation() {
@@ -25,50 +27,159 @@ public class SpecificationImplementation<T> implements Specification<T> {
 
     @Override
     public Predicate toPredicate(Root<T> root, CriteriaQuery<?> criteriaQuery, CriteriaBuilder builder) {
-        SearchOperation searchOperation = getSimpleOperation(criteria.getOperation());
+        return predicate(criteria, root, builder);
+    }
+
+    /**
+     * Creates predicate for one criteria. Path and operation are already resolved in criteria,
+     * so only value is bound here.
+     *
+     * @param criteria Search criteria
+     * @param root     Query root
+     * @param builder  Criteria builder
+     * @param <T>      Class in witch we searching
+     * @return Predicate or null if operation is unknown
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <T> Predicate predicate(SearchCriteria criteria, Root<T> root, CriteriaBuilder builder) {
+        SearchOperation searchOperation = criteria.getOperation();
 
         if (searchOperation == null) {
             return null;
         }
 
+        Path path = ((PathResolver<T>) criteria.getPath()).resolve(root);
+        Object value = criteria.getValue();
+
         switch (searchOperation) {
             case EQUALITY:
-                return builder.equal(buildPath(criteria.getKey(), root), criteria.getValue());
+                /*
+                 * Boolean is compared with literal, so partial indexes "where is_deleted = false" can be used
+                 */
+                if (value instanceof Boolean) {
+                    return (Boolean) value ? builder.isTrue(path) : builder.isFalse(path);
+                }
+                return builder.equal(path, value);
             case NEGATION:
-                return builder.notEqual(buildPath(criteria.getKey(), root), criteria.getValue());
+                return builder.notEqual(path, value);
             case GREATER_THAN:
-                return builder.greaterThanOrEqualTo(
-                        buildPath(criteria.getKey(), root), criteria.getValue().toString());
+                return builder.greaterThanOrEqualTo(path, comparable(value));
             case LESS_THAN:
-                return builder.lessThanOrEqualTo(
-                        buildPath(criteria.getKey(), root), criteria.getValue().toString());
+                return builder.lessThanOrEqualTo(path, comparable(value));
+            case BETWEEN:
+                return between(builder, path, value);
+            case IN:
+                return in(builder, path, value);
+            case NOT_IN:
+                return builder.not(in(builder, path, value));
             case LIKE:
-                return builder.like(buildPath(criteria.getKey(), root), "%" + criteria.getValue().toString() + "%");
+                /*
+                 * Case insensitive substring search. lower(field) is covered by trigram indexes in PostgreSQL
+                 */
+                return builder.like(builder.lower(path),
+                        "%" + escapeLike(value.toString().toLowerCase(Locale.ROOT)) + "%", likeEscape);
             default:
                 return null;
         }
     }
 
     /**
-     * Creates correct base based on key
+     * Creates range predicate. Value is bound with field type, so indexes on field can be used.
+     * Range without lower or upper bound is compiled to single comparison.
+     *
+     * @param builder Criteria builder
+     * @param path    Field to compare
+     * @param value   Range of values
+     * @return Range predicate or null if range has no bounds
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate between(CriteriaBuilder builder, Path<Comparable> path, Object value) {
+        if (!(value instanceof Range)) {
+            throw new IllegalArgumentException("Between operation expects range value");
+        }
+
+        Range<?> range = (Range<?>) value;
+
+        if (range.getFrom() != null && range.getTo() != null) {
+            return builder.between(path, (Comparable) range.getFrom(), (Comparable) range.getTo());
+        }
+        if (range.getFrom() != null) {
+            return builder.greaterThanOrEqualTo(path, (Comparable) range.getFrom());
+        }
+        if (range.getTo() != null) {
+            return builder.lessThanOrEqualTo(path, (Comparable) range.getTo());
+        }
+
+        return null;
+    }
+
+    /**
+     * Creates set membership predicate. Collection is bound as one list parameter, not as literal per value,
+     * so numbers are not inlined into SQL. Hibernate pads list parameter to power of two
+     * (hibernate.query.in_clause_parameter_padding), so lists of different length share statements.
      *
-     * @param key  Search key
-     * @param root Root
-     * @param <R>  Type of path
-     * @return Path with correct path
+     * @param builder Criteria builder
+     * @param path    Field to compare
+     * @param value   Collection of values
+     * @return Membership predicate, always false for empty collection
      */
-    private <R> Path<R> buildPath(String key, Root<T> root) {
-        String[] keyParts = key.split("\\.");
-        Path<R> expression = null;
-
-        for (String i : keyParts) {
-            if (expression == null) {
-                expression = root.get(i);
-            } else {
-                expression = expression.get(i);
+    private static Predicate in(CriteriaBuilder builder, Path<?> path, Object value) {
+        if (!(value instanceof Collection)) {
+            throw new IllegalArgumentException("In operation expects collection value");
+        }
+
+        Collection<?> values = (Collection<?>) value;
+
+        if (values.isEmpty()) {
+            return builder.disjunction();
+        }
+
+        return path.in(listParameter(builder, values));
+    }
+
+    /**
+     * Wraps collection into expression bound as one list parameter
+     *
+     * @param builder Criteria builder
+     * @param values  Collection of values
+     * @return Collection expression for Expression.in
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Expression<Collection<?>> listParameter(CriteriaBuilder builder, Collection<?> values) {
+        return (Expression) builder.literal(values);
+    }
+
+    /**
+     * Checks that value can be compared in database without conversion to string
+     *
+     * @param value Value from criteria
+     * @return Same value
+     */
+    @SuppressWarnings("rawtypes")
+    private static Comparable comparable(Object value) {
+        if (!(value instanceof Comparable)) {
+            throw new IllegalArgumentException("Value can not be compared: " + value);
+        }
+
+        return (Comparable) value;
+    }
+
+    /**
+     * Escapes wildcards, so value is searched as plain text
+     *
+     * @param value Value for like pattern
+     * @return Escaped value
+     */
+    private static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+
+        for (char i : value.toCharArray()) {
+            if (i == likeEscape || i == '%' || i == '_') {
+                escaped.append(likeEscape);
             }
+            escaped.append(i);
         }
 
-        return expression;
+        return escaped.toString();
     }
 }
@@ -2,11 +2,15 @@ package olizarovich.probation.rest.specifications;
 
 import org.springframework.data.jpa.domain.Specification;
 
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Class used to build specifications to search with repository
@@ -15,48 +19,180 @@ import java.util.stream.Collectors;
  */
 public class SpecificationsBuilder<T> {
     /**
-     * Contains criteria for search
+     * Contains criteria for search. Key can have several criteria, all of them should match.
      */
-    private final Map<String, SearchCriteria> params;
+    private final Map<String, List<SearchCriteria>> params;
+
+    /**
+     * Contains groups of criteria. At least one criteria of each group should match.
+     */
+    private final List<List<SearchCriteria>> groups;
 
     public SpecificationsBuilder() {
-        params = new HashMap<String, SearchCriteria>();
+        params = new LinkedHashMap<>();
+        groups = new ArrayList<>();
     }
 
     /**
-     * Add to criteria in builder
+     * Creates builder with criteria and groups of another builder. Builders do not share added criteria
+     *
+     * @param other Builder to copy
+     */
+    public SpecificationsBuilder(SpecificationsBuilder<T> other) {
+        params = new LinkedHashMap<>();
+        other.params.forEach((key, criteria) -> params.put(key, new ArrayList<>(criteria)));
+        groups = new ArrayList<>(other.groups);
+    }
+
+    /**
+     * Add to criteria in builder. Criteria for the same key are combined, lower and upper bounds
+     * of one key are merged into single range.
      *
      * @param key       What we are searching for. Foreign key separated by dot. Example "personAddress.Id"
      * @param operation Rules of searching
      * @param value     Value to compare with
      * @return SpecificationsBuilder with added criteria
      */
-    public SpecificationsBuilder with(String key, String operation, Object value) {
-        params.put(key, new SearchCriteria(key, operation, value));
+    public SpecificationsBuilder<T> with(String key, String operation, Object value) {
+        return with(new SearchCriteria(key, operation, value));
+    }
+
+    /**
+     * Add precompiled filter to builder
+     *
+     * @param filter Filter definition
+     * @param value  Value to compare with
+     * @param <V>    Type of filter value
+     * @return SpecificationsBuilder with added criteria
+     */
+    public <V> SpecificationsBuilder<T> with(FilterDescriptor<T, V> filter, V value) {
+        return with(filter.bind(value));
+    }
+
+    private SpecificationsBuilder<T> with(SearchCriteria criteria) {
+        params.computeIfAbsent(criteria.getKey(), k -> new ArrayList<>(2)).add(criteria);
+        return this;
+    }
+
+    /**
+     * Add group of criteria to builder. Group matches if any of its criteria matches.
+     *
+     * @param criteria Criteria of group
+     * @return SpecificationsBuilder with added group
+     */
+    public SpecificationsBuilder<T> withAnyOf(SearchCriteria... criteria) {
+        if (criteria.length > 0) {
+            groups.add(Arrays.asList(criteria));
+        }
         return this;
     }
 
     /**
-     * Creates specification using all criteria in list
+     * @return True if no criteria or groups were added
+     */
+    public boolean isEmpty() {
+        return params.isEmpty() && groups.isEmpty();
+    }
+
+    /**
+     * Creates specification using all criteria in list.
+     * All criteria are kept in one specification, which creates one conjunction.
      *
      * @return Specification with all criteria
      */
     public Specification<T> build() {
-        if (params.size() == 0) {
+        if (isEmpty()) {
             return null;
         }
 
-        List<Specification> specs = params.values().stream()
-                .map(SpecificationImplementation::new)
-                .collect(Collectors.toList());
+        List<SearchCriteria> all = new ArrayList<>(params.size());
+        for (List<SearchCriteria> i : params.values()) {
+            mergeBounds(i, all);
+        }
 
-        Specification<T> result = specs.get(0);
+        SearchCriteria[][] anyOf = new SearchCriteria[groups.size()][];
+        for (int i = 0; i < anyOf.length; i++) {
+            anyOf[i] = groups.get(i).toArray(new SearchCriteria[0]);
+        }
 
-        for (int i = 1; i < params.size(); i++) {
-            result = Specification.where(result)
-                    .and(specs.get(i));
+        return new CriteriaSpecification<>(all.toArray(new SearchCriteria[0]), anyOf);
+    }
+
+    /**
+     * Merges lower and upper bounds of one key into range criteria.
+     * If key has several bounds of one side, the narrowest is used.
+     *
+     * @param criteria Criteria of one key
+     * @param result   List to add criteria with bounds replaced by range
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void mergeBounds(List<SearchCriteria> criteria, List<SearchCriteria> result) {
+        SearchCriteria lower = null;
+        SearchCriteria upper = null;
+
+        for (SearchCriteria i : criteria) {
+            if (i.getOperation() == SearchOperation.GREATER_THAN && i.getValue() instanceof Comparable) {
+                lower = lower == null || ((Comparable) i.getValue()).compareTo(lower.getValue()) > 0 ? i : lower;
+            } else if (i.getOperation() == SearchOperation.LESS_THAN && i.getValue() instanceof Comparable) {
+                upper = upper == null || ((Comparable) i.getValue()).compareTo(upper.getValue()) < 0 ? i : upper;
+            } else {
+                result.add(i);
+            }
         }
 
-        return result;
+        if (lower != null && upper != null) {
+            result.add(lower.with(SearchOperation.BETWEEN,
+                    new Range((Comparable) lower.getValue(), (Comparable) upper.getValue())));
+        } else if (lower != null) {
+            result.add(lower);
+        } else if (upper != null) {
+            result.add(upper);
+        }
+    }
+
+    /**
+     * Specification with all criteria of builder
+     *
+     * @param <T> Class in witch we searching
+     */
+    private static class CriteriaSpecification<T> implements Specification<T> {
+        private final SearchCriteria[] all;
+        private final SearchCriteria[][] anyOf;
+
+        CriteriaSpecification(SearchCriteria[] all, SearchCriteria[][] anyOf) {
+            this.all = all;
+            this.anyOf = anyOf;
+        }
+
+        @Override
+        public Predicate toPredicate(Root<T> root, CriteriaQuery<?> criteriaQuery, CriteriaBuilder builder) {
+            Predicate[] predicates = new Predicate[all.length + anyOf.length];
+            int count = 0;
+
+            for (SearchCriteria i : all) {
+                Predicate predicate = SpecificationImplementation.predicate(i, root, builder);
+                if (predicate != null) {
+                    predicates[count++] = predicate;
+                }
+            }
+
+            for (SearchCriteria[] i : anyOf) {
+                Predicate[] group = new Predicate[i.length];
+                int groupCount = 0;
+
+                for (SearchCriteria j : i) {
+                    Predicate predicate = SpecificationImplementation.predicate(j, root, builder);
+                    if (predicate != null) {
+                        group[groupCount++] = predicate;
+                    }
+                }
+
+                if (groupCount > 0) {
+                    predicates[count++] = builder.or(Arrays.copyOf(group, groupCount));
+                }
+            }
+
+            return builder.and(count == predicates.length ? predicates : Arrays.copyOf(predicates, count));
+        }
     }
 }
@@ -0,0 +1,22 @@
+-- Login and registration search person by username. Username identifies person,
+-- so it is unique for all persons, including soft deleted ones
+CREATE UNIQUE INDEX persons_username_unique_index ON persons (username);
+
+-- Foreign keys: document people, person roles
+CREATE INDEX documents_customer_id_index ON documents (customer_id);
+CREATE INDEX documents_executor_id_index ON documents (executor_id);
+CREATE INDEX roles_person_id_index ON roles (person_id);
+
+-- Default search skips soft deleted rows. Indexes follow sort orders
+-- with id as tie breaker, so one index serves filter, sort and cursor
+CREATE INDEX persons_id_active_index ON persons (id) WHERE is_deleted = false;
+CREATE INDEX persons_first_name_id_active_index ON persons (first_name, id) WHERE is_deleted = false;
+CREATE INDEX persons_last_name_id_active_index ON persons (last_name, id) WHERE is_deleted = false;
+CREATE INDEX persons_birth_date_id_active_index ON persons (birth_date, id) WHERE is_deleted = false;
+CREATE INDEX persons_username_id_active_index ON persons (username, id) WHERE is_deleted = false;
+
+CREATE INDEX documents_id_active_index ON documents (id) WHERE is_deleted = false;
+CREATE INDEX documents_title_id_active_index ON documents (title, id) WHERE is_deleted = false;
+CREATE INDEX documents_status_id_active_index ON documents (status, id) WHERE is_deleted = false;
+CREATE INDEX documents_creation_date_id_active_index ON documents (creation_date, id) WHERE is_deleted = false;
+CREATE INDEX documents_execution_period_id_active_index ON documents (execution_period, id) WHERE is_deleted = false;
@@ -0,0 +1,9 @@
+-- Substring search "~" compares lower(field) like '%value%'.
+-- Trigram indexes serve such patterns, b-tree indexes can not
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX documents_title_trgm_index ON documents USING gin (lower(title) gin_trgm_ops);
+CREATE INDEX documents_status_trgm_index ON documents USING gin (lower(status) gin_trgm_ops);
+
+CREATE INDEX persons_first_name_trgm_index ON persons USING gin (lower(first_name) gin_trgm_ops);
+CREATE INDEX persons_last_name_trgm_index ON persons USING gin (lower(last_name) gin_trgm_ops);
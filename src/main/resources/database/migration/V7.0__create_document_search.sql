@@ -0,0 +1,43 @@
+-- Full text search over document title, status and names of customer and executor.
+-- Vector is kept up to date by triggers, so search reads only the GIN index
+ALTER TABLE documents ADD COLUMN search_vector TSVECTOR;
+
+CREATE FUNCTION documents_search_vector(title VARCHAR, status VARCHAR, customer_id INT, executor_id INT)
+RETURNS TSVECTOR AS $$
+    SELECT setweight(to_tsvector('simple', coalesce(title, '')), 'A')
+        || setweight(to_tsvector('simple', coalesce(status, '')), 'B')
+        || setweight(to_tsvector('simple', coalesce(
+            (SELECT concat_ws(' ', p.first_name, p.last_name) FROM persons p WHERE p.id = customer_id), '')), 'C')
+        || setweight(to_tsvector('simple', coalesce(
+            (SELECT concat_ws(' ', p.first_name, p.last_name) FROM persons p WHERE p.id = executor_id), '')), 'C');
+$$ LANGUAGE sql STABLE;
+
+CREATE FUNCTION documents_search_vector_update() RETURNS TRIGGER AS $$
+BEGIN
+    NEW.search_vector := documents_search_vector(NEW.title, NEW.status, NEW.customer_id, NEW.executor_id);
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER documents_search_vector_trigger
+    BEFORE INSERT OR UPDATE OF title, status, customer_id, executor_id ON documents
+    FOR EACH ROW EXECUTE PROCEDURE documents_search_vector_update();
+
+-- Renaming a person changes vectors of documents this person is customer or executor of
+CREATE FUNCTION persons_search_vector_update() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE documents d
+    SET search_vector = documents_search_vector(d.title, d.status, d.customer_id, d.executor_id)
+    WHERE d.customer_id = NEW.id OR d.executor_id = NEW.id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER persons_search_vector_trigger
+    AFTER UPDATE OF first_name, last_name ON persons
+    FOR EACH ROW WHEN (OLD.first_name IS DISTINCT FROM NEW.first_name OR OLD.last_name IS DISTINCT FROM NEW.last_name)
+    EXECUTE PROCEDURE persons_search_vector_update();
+
+UPDATE documents SET search_vector = documents_search_vector(title, status, customer_id, executor_id);
+
+CREATE INDEX documents_search_vector_index ON documents USING gin (search_vector) WHERE is_deleted = false;
@@ -0,0 +1,3 @@
+-- Documents get ids from sequence in blocks of 50, so Hibernate can batch inserts.
+-- Inserts without id still use column default and skip the rest of their block.
+ALTER SEQUENCE documents_id_seq INCREMENT BY 50;
@@ -0,0 +1,92 @@
+package olizarovich.probation.rest.test.benchmarks;
+
+import olizarovich.probation.rest.models.Document;
+import olizarovich.probation.rest.models.Person;
+import olizarovich.probation.rest.repositories.DocumentRepository;
+import olizarovich.probation.rest.services.DocumentService;
+import olizarovich.probation.rest.services.implementation.DocumentServiceImplementation;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares import of documents by saving them one by one (as looping POST /documents)
+ * with batch save used by POST /documents/batch.
+ * Uses h2 from test properties, other database can be set with -Dspring.datasource.url.
+ * Run: mvn -P benchmark test -Dbenchmark=BatchInsertBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BatchInsertBenchmark {
+    private static final LocalDate date = LocalDate.of(2000, 1, 1);
+
+    @Param({"5000"})
+    private int documents;
+
+    private ConfigurableApplicationContext context;
+
+    private DocumentService service;
+
+    private Person person;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkConfig.start();
+        service = new DocumentServiceImplementation(context.getBean(DocumentRepository.class));
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("insert into persons (username, password, first_name, last_name, birth_date, is_deleted) "
+                + "values ('bench', 'bench', 'bench', 'bench', ?, false)", Date.valueOf(date));
+
+        person = new Person();
+        person.setId(jdbcTemplate.queryForObject("select max(id) from persons", Integer.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int oneByOne() {
+        int saved = 0;
+        for (Document i : createDocuments()) {
+            service.save(i);
+            saved++;
+        }
+
+        return saved;
+    }
+
+    @Benchmark
+    public int batch() {
+        return service.saveBatch(createDocuments()).size();
+    }
+
+    private List<Document> createDocuments() {
+        List<Document> result = new ArrayList<>(documents);
+
+        for (int i = 0; i < documents; i++) {
+            Document document = new Document();
+            document.setTitle("Document" + i);
+            document.setStatus("Ready");
+            document.setCreationDate(date);
+            document.setExecutionPeriod(date.plusDays(i % 100));
+            document.setCustomer(person);
+            document.setExecutor(person);
+            result.add(document);
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,28 @@
+package olizarovich.probation.rest.test.benchmarks;
+
+import olizarovich.probation.rest.test.repositories.RepositoryTestConfig;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Context with repositories and database from test properties for benchmarks
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@Import(RepositoryTestConfig.class)
+public class BenchmarkConfig {
+    /**
+     * Starts context without web server
+     *
+     * @return Started context, should be closed after benchmark
+     */
+    public static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(BenchmarkConfig.class)
+                .web(WebApplicationType.NONE)
+                .run();
+    }
+}
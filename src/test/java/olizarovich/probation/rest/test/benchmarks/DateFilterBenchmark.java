@@ -0,0 +1,115 @@
+package olizarovich.probation.rest.test.benchmarks;
+
+import olizarovich.probation.rest.models.Document;
+import olizarovich.probation.rest.repositories.DocumentRepository;
+import olizarovich.probation.rest.specifications.SearchCriteria;
+import olizarovich.probation.rest.specifications.SpecificationImplementation;
+import olizarovich.probation.rest.specifications.SpecificationsBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares date range filters bound as strings (previous implementation) with typed filters.
+ * Uses h2 from test properties, other database can be set with -Dspring.datasource.url.
+ * Run: mvn -P benchmark test -Dbenchmark=DateFilterBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DateFilterBenchmark {
+    private static final LocalDate firstDate = LocalDate.of(2000, 1, 1);
+
+    @Param({"100000"})
+    private int documents;
+
+    private ConfigurableApplicationContext context;
+
+    private DocumentRepository repository;
+
+    private LocalDate from;
+
+    private LocalDate to;
+
+    /**
+     * Fills documents table. Creation dates are spread over ten years
+     */
+    @Setup
+    public void setUp() {
+        context = BenchmarkConfig.start();
+        repository = context.getBean(DocumentRepository.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("insert into persons (username, password, first_name, last_name, birth_date, is_deleted) "
+                + "values ('bench', 'bench', 'bench', 'bench', ?, false)", Date.valueOf(firstDate));
+        Integer personId = jdbcTemplate.queryForObject("select max(id) from persons", Integer.class);
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < documents; i++) {
+            Date date = Date.valueOf(firstDate.plusDays(i % 3650));
+            rows.add(new Object[]{"Document" + i, "Ready", date, date, personId, personId});
+
+            if (rows.size() == 1000 || i == documents - 1) {
+                jdbcTemplate.batchUpdate("insert into documents (title, status, creation_date, execution_period, "
+                        + "customer_id, executor_id, is_deleted) values (?, ?, ?, ?, ?, ?, false)", rows);
+                rows.clear();
+            }
+        }
+
+        jdbcTemplate.execute("create index documents_creation_date_benchmark_index on documents (creation_date)");
+
+        from = firstDate.plusDays(1000);
+        to = firstDate.plusDays(1030);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Previous implementation: bounds are converted to strings, so date column is compared as string.
+     * Hibernate rejects string parameter for date path, so column is casted like database does.
+     */
+    @Benchmark
+    public long stringBounds() {
+        Specification<Document> specification = (root, query, builder) -> builder.and(
+                builder.greaterThanOrEqualTo(root.get("creationDate").as(String.class), from.toString()),
+                builder.lessThanOrEqualTo(root.get("creationDate").as(String.class), to.toString()));
+
+        return repository.count(specification);
+    }
+
+    /**
+     * Typed bounds with two comparisons
+     */
+    @Benchmark
+    public long typedBounds() {
+        Specification<Document> specification = Specification
+                .where(new SpecificationImplementation<Document>(new SearchCriteria("creationDate", ">", from)))
+                .and(new SpecificationImplementation<>(new SearchCriteria("creationDate", "<", to)));
+
+        return repository.count(specification);
+    }
+
+    /**
+     * Typed bounds merged by SpecificationsBuilder into between operation
+     */
+    @Benchmark
+    public long typedBetween() {
+        SpecificationsBuilder<Document> specificationsBuilder = new SpecificationsBuilder<>();
+        specificationsBuilder.with("creationDate", ">", from).with("creationDate", "<", to);
+
+        return repository.count(specificationsBuilder.build());
+    }
+}
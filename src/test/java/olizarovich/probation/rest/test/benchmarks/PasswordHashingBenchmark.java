@@ -0,0 +1,54 @@
+package olizarovich.probation.rest.test.benchmarks;
+
+import olizarovich.probation.rest.security.BoundedPasswordEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures login password checks per second at different BCrypt cost factors.
+ * Checks run on request threads directly (previous implementation) and on bounded hashing executor.
+ * Run: mvn -P benchmark test -Dbenchmark=PasswordHashingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Threads(8)
+@Fork(1)
+public class PasswordHashingBenchmark {
+    @Param({"8", "10", "12"})
+    private int strength;
+
+    private BCryptPasswordEncoder encoder;
+
+    private BoundedPasswordEncoder boundedEncoder;
+
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder(strength);
+        boundedEncoder = new BoundedPasswordEncoder(encoder, Runtime.getRuntime().availableProcessors(),
+                1000, Duration.ofMinutes(1));
+        hash = encoder.encode("password");
+    }
+
+    @TearDown
+    public void tearDown() {
+        boundedEncoder.destroy();
+    }
+
+    @Benchmark
+    public boolean requestThread() {
+        return encoder.matches("password", hash);
+    }
+
+    @Benchmark
+    public boolean hashingExecutor() {
+        return boundedEncoder.matches("password", hash);
+    }
+}
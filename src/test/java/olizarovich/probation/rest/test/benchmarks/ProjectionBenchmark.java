@@ -0,0 +1,96 @@
+package olizarovich.probation.rest.test.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import olizarovich.probation.rest.models.DocumentView;
+import olizarovich.probation.rest.models.ViewFields;
+import olizarovich.probation.rest.repositories.DocumentRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares page of documents read as managed entities (previous list endpoint) with read only projections.
+ * Both variants write page into JSON like the controller does. Allocation per page is shown with -prof gc.
+ * Uses h2 from test properties, other database can be set with -Dspring.datasource.url.
+ * Run: mvn -P benchmark test -Dbenchmark="ProjectionBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionBenchmark {
+    private static final LocalDate date = LocalDate.of(2000, 1, 1);
+
+    private static final int persons = 100;
+
+    @Param({"100"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+
+    private DocumentRepository repository;
+
+    private ObjectMapper objectMapper;
+
+    private Pageable pageable;
+
+    /**
+     * Fills tables with persons having one role and documents referencing them
+     */
+    @Setup
+    public void setUp() {
+        context = BenchmarkConfig.start();
+        repository = context.getBean(DocumentRepository.class);
+        objectMapper = context.getBean(ObjectMapper.class).copy().setFilterProvider(ViewFields.all());
+        pageable = PageRequest.of(0, pageSize, Sort.by("id"));
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        for (int i = 0; i < persons; i++) {
+            jdbcTemplate.update("insert into persons (username, password, first_name, last_name, birth_date, "
+                    + "is_deleted) values (?, 'bench', 'first', 'last', ?, false)", "bench" + i, Date.valueOf(date));
+        }
+        Integer firstPerson = jdbcTemplate.queryForObject("select min(id) from persons", Integer.class);
+        jdbcTemplate.update("insert into roles (person_id, role) select id, 'ROLE_USER' from persons");
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            rows.add(new Object[]{"Document" + i, "Ready", Date.valueOf(date), Date.valueOf(date),
+                    firstPerson + i % persons, firstPerson + (i + 1) % persons});
+        }
+        jdbcTemplate.batchUpdate("insert into documents (title, status, creation_date, execution_period, "
+                + "customer_id, executor_id, is_deleted) values (?, ?, ?, ?, ?, ?, false)", rows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Managed documents with persons and roles, persons may be taken from second level cache
+     */
+    @Benchmark
+    public byte[] entities() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(repository.findSlice(null, pageable).getContent());
+    }
+
+    /**
+     * Projections with flat customer and executor summaries selected by one query
+     */
+    @Benchmark
+    public byte[] projections() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(repository.findSlice(null, pageable, DocumentView.projection).getContent());
+    }
+}
@@ -0,0 +1,99 @@
+package olizarovich.probation.rest.test.benchmarks;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import olizarovich.probation.rest.models.DocumentView;
+import olizarovich.probation.rest.models.PersonView;
+import olizarovich.probation.rest.models.ViewFields;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares JSON with binary formats served by Accept header on pages of list endpoints.
+ * Mappers are configured like the application ones: ISO dates and view filters.
+ * Payload size of every page is printed at setup, allocation is shown with -prof gc.
+ * Run: mvn -P benchmark test -Dbenchmark="SerializationBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+    private static final LocalDate date = LocalDate.of(2000, 1, 1);
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"100"})
+    private int pageSize;
+
+    private ObjectMapper mapper;
+
+    private List<DocumentView> documents;
+
+    private List<PersonView> persons;
+
+    private byte[] documentsPayload;
+
+    @Setup
+    public void setUp() throws IOException {
+        JsonFactory factory = format.equals("cbor") ? new CBORFactory()
+                : format.equals("smile") ? new SmileFactory() : new JsonFactory();
+        mapper = new Jackson2ObjectMapperBuilder()
+                .factory(factory)
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .filters(ViewFields.all())
+                .build();
+
+        documents = new ArrayList<>(pageSize);
+        persons = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            documents.add(new DocumentView(i, "Document" + i, "Ready", date, date.plusDays(i),
+                    i, "Customer" + i, "Last" + i, i + 1, "Executor" + i, "Last" + (i + 1)));
+
+            PersonView person = new PersonView(i, "user" + i, "First" + i, "Last" + i, date.minusDays(i));
+            person.addRole("ROLE_USER");
+            persons.add(person);
+        }
+
+        documentsPayload = mapper.writeValueAsBytes(documents);
+        System.out.printf("%n%s: documents page %d bytes, persons page %d bytes%n", format,
+                documentsPayload.length, mapper.writeValueAsBytes(persons).length);
+    }
+
+    /**
+     * Server side: page of /documents
+     */
+    @Benchmark
+    public byte[] writeDocuments() throws IOException {
+        return mapper.writeValueAsBytes(documents);
+    }
+
+    /**
+     * Server side: page of /persons with roles
+     */
+    @Benchmark
+    public byte[] writePersons() throws IOException {
+        return mapper.writeValueAsBytes(persons);
+    }
+
+    /**
+     * Client side: parsing page of /documents
+     */
+    @Benchmark
+    public JsonNode readDocuments() throws IOException {
+        return mapper.readTree(documentsPayload);
+    }
+}
@@ -0,0 +1,171 @@
+package olizarovich.probation.rest.test.benchmarks;
+
+import olizarovich.probation.rest.models.Document;
+import olizarovich.probation.rest.queries.DocumentQuery;
+import olizarovich.probation.rest.specifications.SpecificationsBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.*;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares building of document filter predicate: previous builder, builder with string keys
+ * and precompiled filters of DocumentQuery. Database is not queried.
+ * Run: mvn -P benchmark test -Dbenchmark=SpecificationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpecificationBenchmark {
+    private static final LocalDate from = LocalDate.of(2000, 1, 1);
+    private static final LocalDate to = LocalDate.of(2001, 1, 1);
+
+    private ConfigurableApplicationContext context;
+
+    private EntityManager entityManager;
+
+    private CriteriaBuilder builder;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkConfig.start();
+        entityManager = context.getBean(EntityManagerFactory.class).createEntityManager();
+        builder = entityManager.getCriteriaBuilder();
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManager.close();
+        context.close();
+    }
+
+    /**
+     * Previous implementation: criteria in HashMap, string operations, key split for every predicate
+     */
+    @Benchmark
+    public Predicate legacyBuilder() {
+        Map<String, String[]> params = new HashMap<>();
+        Map<String, Object> values = new HashMap<>();
+        legacyWith(params, values, "title", "~", "Contract");
+        legacyWith(params, values, "status", "~", "Ready");
+        legacyWith(params, values, "creationDate", ">", from);
+        legacyWith(params, values, "creationDate", "<", to);
+        legacyWith(params, values, "customer.lastName", "~", "Smith");
+        legacyWith(params, values, "isDeleted", ":", false);
+
+        List<Specification<Document>> specs = params.values().stream()
+                .map(i -> new LegacySpecification(i[0], i[1], values.get(i[0])))
+                .collect(Collectors.toList());
+
+        Specification<Document> result = specs.get(0);
+        for (int i = 1; i < specs.size(); i++) {
+            result = Specification.where(result).and(specs.get(i));
+        }
+
+        return toPredicate(result);
+    }
+
+    /**
+     * Current builder with string keys. Paths are resolved by cached resolvers
+     */
+    @Benchmark
+    public Predicate stringKeys() {
+        SpecificationsBuilder<Document> specificationsBuilder = new SpecificationsBuilder<>();
+        specificationsBuilder.with("title", "~", "Contract")
+                .with("status", "~", "Ready")
+                .with("creationDate", ">", from)
+                .with("creationDate", "<", to)
+                .with("customer.lastName", "~", "Smith")
+                .with("isDeleted", ":", false);
+
+        return toPredicate(specificationsBuilder.build());
+    }
+
+    /**
+     * Precompiled filters of DocumentQuery built with static metamodel
+     */
+    @Benchmark
+    public Predicate precompiledFilters() {
+        DocumentQuery query = DocumentQuery.builder()
+                .filterByTitle("Contract")
+                .filterByStatus("Ready")
+                .filterByCreationDateMoreThan(from)
+                .filterByCreationDateLessThan(to)
+                .filterByCustomerLastName("Smith")
+                .build();
+
+        return toPredicate(query.getFilter());
+    }
+
+    private Predicate toPredicate(Specification<Document> specification) {
+        CriteriaQuery<Document> query = builder.createQuery(Document.class);
+        Root<Document> root = query.from(Document.class);
+
+        return specification.toPredicate(root, query, builder);
+    }
+
+    private static void legacyWith(Map<String, String[]> params, Map<String, Object> values,
+                                   String key, String operation, Object value) {
+        params.put(key, new String[]{key, operation});
+        values.put(key, value);
+    }
+
+    /**
+     * Copy of previous SpecificationImplementation with typed comparison
+     */
+    private static class LegacySpecification implements Specification<Document> {
+        private final String key;
+        private final String operation;
+        private final Object value;
+
+        LegacySpecification(String key, String operation, Object value) {
+            this.key = key;
+            this.operation = operation;
+            this.value = value;
+        }
+
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public Predicate toPredicate(Root<Document> root, CriteriaQuery<?> query, CriteriaBuilder builder) {
+            switch (operation) {
+                case ":":
+                    return builder.equal(buildPath(root), value);
+                case ">":
+                    return builder.greaterThanOrEqualTo((Path<Comparable>) buildPath(root), (Comparable) value);
+                case "<":
+                    return builder.lessThanOrEqualTo((Path<Comparable>) buildPath(root), (Comparable) value);
+                case "~":
+                    return builder.like((Path<String>) buildPath(root), "%" + value + "%");
+                default:
+                    return null;
+            }
+        }
+
+        private Path<?> buildPath(Root<Document> root) {
+            String[] keyParts = key.split("\\.");
+            Path<?> expression = null;
+
+            for (String i : keyParts) {
+                if (expression == null) {
+                    expression = root.get(i);
+                } else {
+                    expression = expression.get(i);
+                }
+            }
+
+            return expression;
+        }
+    }
+}
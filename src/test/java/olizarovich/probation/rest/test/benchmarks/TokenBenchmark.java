@@ -0,0 +1,69 @@
+package olizarovich.probation.rest.test.benchmarks;
+
+import olizarovich.probation.rest.security.PersonDetails;
+import olizarovich.probation.rest.security.SignedTokenService;
+import olizarovich.probation.rest.security.TokenAuthentication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares authentication of one request by signed token with BCrypt check of form login.
+ * Run: mvn -P benchmark test -Dbenchmark=TokenBenchmark
+ * Allocation rate: mvn -P benchmark test -Dbenchmark="TokenBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenBenchmark {
+    private SignedTokenService tokenService;
+
+    private PersonDetails person;
+
+    private String token;
+
+    private BCryptPasswordEncoder encoder;
+
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+
+        tokenService = new SignedTokenService(secret, Duration.ofHours(1), Clock.systemUTC());
+        person = new PersonDetails(1, "username", "password",
+                AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN"));
+        token = tokenService.issue(person);
+
+        encoder = new BCryptPasswordEncoder();
+        hash = encoder.encode("password");
+    }
+
+    @Benchmark
+    public TokenAuthentication verifyToken() {
+        return tokenService.verify(token);
+    }
+
+    @Benchmark
+    public String issueToken() {
+        return tokenService.issue(person);
+    }
+
+    /**
+     * Password check done by form login on every authentication
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean bcryptMatch() {
+        return encoder.matches("password", hash);
+    }
+}
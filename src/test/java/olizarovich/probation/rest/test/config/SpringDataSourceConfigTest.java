@@ -0,0 +1,42 @@
+package olizarovich.probation.rest.test.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import olizarovich.probation.rest.config.SpringDataSourceConfig;
+import org.junit.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Class for testing settings of connection pool. In-memory database is used instead of PostgreSQL.
+ */
+public class SpringDataSourceConfigTest {
+    /**
+     * Every data-source-properties entry should reach the jdbc driver
+     */
+    @Test
+    public void testDriverProperties() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("spring.datasource.driver-class-name", "org.h2.Driver")
+                .withProperty("spring.datasource.url", "jdbc:h2:mem:pooltest")
+                .withProperty("spring.datasource.user", "sa")
+                .withProperty("spring.datasource.password", "")
+                .withProperty("spring.datasource.hikari.minimum-idle", "1")
+                .withProperty("spring.datasource.hikari.data-source-properties.prepareThreshold", "5")
+                .withProperty("spring.datasource.hikari.data-source-properties.reWriteBatchedInserts", "true");
+
+        SpringDataSourceConfig config = new SpringDataSourceConfig();
+        ReflectionTestUtils.setField(config, "environment", environment);
+
+        try (HikariDataSource dataSource = (HikariDataSource) config.postgresqlDataSource()) {
+            Properties properties = dataSource.getDataSourceProperties();
+
+            assertEquals(2, properties.size());
+            assertEquals("5", properties.getProperty("prepareThreshold"));
+            assertEquals("true", properties.getProperty("reWriteBatchedInserts"));
+        }
+    }
+}
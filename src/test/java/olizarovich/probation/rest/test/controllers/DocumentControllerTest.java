@@ -1,5 +1,9 @@
 package olizarovich.probation.rest.test.controllers;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.google.gson.Gson;
 import olizarovich.probation.rest.config.ApplicationConfig;
 import olizarovich.probation.rest.models.Document;
@@ -28,6 +32,7 @@ import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
@@ -53,10 +58,13 @@ public class DocumentControllerTest {
     @Autowired
     private RoleRepository roleRepository;
 
+    /**
+     * Removes rows in order of foreign keys. Usernames are unique, so persons are removed too
+     */
     public void resetDb() {
-        repository.deleteAll();
-        roleRepository.deleteAll();
-        personRepository.deleteAll();
+        repository.deleteAllInBatch();
+        roleRepository.deleteAllInBatch();
+        personRepository.deleteAllInBatch();
     }
 
     @Test
@@ -82,6 +90,72 @@ public class DocumentControllerTest {
                 .andExpect(jsonPath("$[1].status", is("status2")));
     }
 
+    /**
+     * Binary formats are selected by Accept header and have the same content as JSON
+     */
+    @Test
+    public void givenDocument_whenGetDocumentsAsBinary_thenSameAsJson() throws Exception {
+        resetDb();
+
+        LocalDate date = LocalDate.of(2000, 10, 10);
+        LocalDate datePlusMonth =  LocalDate.of(2000, 11, 11);
+
+        Person ex = createTestPerson("bob", "bob", "bob", "bob", LocalDate.of(2000, 11, 11));
+        Person cust = createTestPerson("alex", "alex", "alex", "alex", LocalDate.of(2000, 11, 11));
+
+        createTestDocument("Title1", "status1", date, datePlusMonth, cust, ex);
+        createTestDocument("Title2", "status2", date, datePlusMonth, ex, cust);
+
+        JsonNode json = new ObjectMapper().readTree(mvc.perform(get("/documents").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray());
+
+        MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+        byte[] cborBody = mvc.perform(get("/documents").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] smileBody = mvc.perform(get("/documents").accept(smile))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(smile))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(json.get(0).get("creationDate").asText()).isEqualTo("2000-10-10");
+        assertThat(new ObjectMapper(new CBORFactory()).readTree(cborBody)).isEqualTo(json);
+        assertThat(new ObjectMapper(new SmileFactory()).readTree(smileBody)).isEqualTo(json);
+    }
+
+    @Test
+    public void givenDocument_whenGetDocumentsByLists_thenOnlyMatching() throws Exception {
+        resetDb();
+
+        LocalDate date = LocalDate.of(2000, 10, 10);
+        LocalDate datePlusMonth =  LocalDate.of(2000, 11, 11);
+
+        Person ex = createTestPerson("bob", "bob", "bob", "bob", LocalDate.of(2000, 11, 11));
+        Person cust = createTestPerson("alex", "alex", "alex", "alex", LocalDate.of(2000, 11, 11));
+        Person other = createTestPerson("tom", "tom", "tom", "tom", LocalDate.of(2000, 11, 11));
+
+        createTestDocument("Title1", "status1", date, datePlusMonth, cust, ex);
+        createTestDocument("Title2", "status2", date, datePlusMonth, ex, cust);
+        createTestDocument("Title3", "status3", date, datePlusMonth, ex, other);
+
+        mvc.perform(get("/documents").param("statuses", "status1,status3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[*].title", containsInAnyOrder("Title1", "Title3")));
+
+        mvc.perform(get("/documents").param("customerIds", cust.getId() + "," + other.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].title", is("Title1")));
+
+        mvc.perform(get("/documents").param("personIds", String.valueOf(other.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].title", is("Title3")));
+    }
+
     @Test
     public void givenDocument_whenFindDocument_thenStatus200() throws Exception {
         resetDb();
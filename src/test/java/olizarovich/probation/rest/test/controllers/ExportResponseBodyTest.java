@@ -0,0 +1,72 @@
+package olizarovich.probation.rest.test.controllers;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import olizarovich.probation.rest.controllers.ExportResponseBody;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Class for testing export formats. Rows are passed directly, database is not used.
+ */
+public class ExportResponseBodyTest {
+    private static final List<String> fields = Arrays.asList("id", "title", "customer.id", "creationDate");
+
+    private static final List<Object[]> rows = Arrays.asList(
+            new Object[]{1, "Plain", 7, LocalDate.of(2000, 1, 1)},
+            new Object[]{2, "Has, \"quotes\"", null, null});
+
+    @Test
+    public void testCsv() throws IOException {
+        String csv = export(ExportResponseBody.Format.CSV);
+
+        assertEquals("id,title,customerId,creationDate\r\n"
+                + "1,Plain,7,2000-01-01\r\n"
+                + "2,\"Has, \"\"quotes\"\"\",,\r\n", csv);
+    }
+
+    @Test
+    public void testNdjson() throws IOException {
+        String json = export(ExportResponseBody.Format.NDJSON);
+
+        assertEquals("{\"id\":1,\"title\":\"Plain\",\"customerId\":7,\"creationDate\":\"2000-01-01\"}\n"
+                + "{\"id\":2,\"title\":\"Has, \\\"quotes\\\"\",\"customerId\":null,\"creationDate\":null}\n", json);
+    }
+
+    @Test
+    public void testFileName() {
+        assertEquals("documents.csv.gz", ExportResponseBody.Format.of("csv").getFileName("documents"));
+        assertEquals("persons.ndjson.gz", ExportResponseBody.Format.of("NDJSON").getFileName("persons"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedFormat() {
+        ExportResponseBody.Format.of("xml");
+    }
+
+    private static String export(ExportResponseBody.Format format) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new ExportResponseBody(format, fields, new JsonFactory(), action -> rows.forEach(action)).writeTo(output);
+
+        ByteArrayOutputStream unpacked = new ByteArrayOutputStream();
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = input.read(buffer)) > 0) {
+                unpacked.write(buffer, 0, read);
+            }
+        }
+
+        return new String(unpacked.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
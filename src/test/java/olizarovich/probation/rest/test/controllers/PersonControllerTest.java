@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 import olizarovich.probation.rest.config.ApplicationConfig;
 import olizarovich.probation.rest.models.Person;
 import olizarovich.probation.rest.models.Role;
+import olizarovich.probation.rest.repositories.DocumentRepository;
 import olizarovich.probation.rest.repositories.PersonRepository;
 import olizarovich.probation.rest.repositories.RoleRepository;
 import olizarovich.probation.rest.specifications.SpecificationsBuilder;
@@ -51,10 +52,16 @@ public class PersonControllerTest {
     private PersonRepository repository;
     @Autowired
     private RoleRepository roleRepository;
+    @Autowired
+    private DocumentRepository documentRepository;
 
+    /**
+     * Removes rows in order of foreign keys. Usernames are unique, so persons are removed too
+     */
     public void resetDb() {
-        repository.deleteAll();
-        roleRepository.deleteAll();
+        documentRepository.deleteAllInBatch();
+        roleRepository.deleteAllInBatch();
+        repository.deleteAllInBatch();
     }
 
     /**
@@ -0,0 +1,237 @@
+package olizarovich.probation.rest.test.flyway;
+
+import org.flywaydb.test.FlywayTestExecutionListener;
+import org.flywaydb.test.annotation.FlywayTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that search queries generated by specifications use indexes from V5.0 and later migrations.
+ * Sequential scan is disabled, so planner chooses index even on small tables.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = FlywayPostgresqlTestConfig.class)
+@TestExecutionListeners({DependencyInjectionTestExecutionListener.class,
+        FlywayTestExecutionListener.class})
+@FlywayTest(locationsForMigrate = "database/migration")
+public class IndexUsageIntegrationTest {
+    @Autowired
+    private ApplicationContext context;
+
+    private Connection con;
+
+    /**
+     * Default document list: not deleted, ordered by id
+     */
+    @Test
+    public void testDocumentDefaultList() throws Exception {
+        String plan = explain("select * from documents where is_deleted = false order by id limit 11");
+
+        assertTrue(plan, plan.contains("documents_id_active_index"));
+    }
+
+    /**
+     * Keyset page sorted by title starts index scan at the cursor, earlier pages are not read
+     */
+    @Test
+    public void testDocumentKeysetByTitle() throws Exception {
+        String plan = explain("select * from documents where is_deleted = false "
+                + "and title >= 'a' and (title > 'a' or id > 1) order by title, id limit 11");
+
+        assertTrue(plan, plan.contains("documents_title_id_active_index"));
+        assertTrue(plan, plan.matches("(?s).*Index Cond: \\(+title >= .*"));
+    }
+
+    /**
+     * Entities with null sort value are read by index after all values
+     */
+    @Test
+    public void testDocumentKeysetNullBucket() throws Exception {
+        String plan = explain("select d.* from documents d left outer join persons p on d.customer_id = p.id "
+                + "where d.is_deleted = false and p.last_name is null and d.id > 1 order by d.id limit 11");
+
+        assertTrue(plan, plan.contains("documents_id_active_index"));
+        assertTrue(plan, plan.matches("(?s).*Index Cond: \\(+id > .*"));
+    }
+
+    /**
+     * Filter by execution period
+     */
+    @Test
+    public void testDocumentExecutionPeriodRange() throws Exception {
+        String plan = explain("select * from documents where is_deleted = false "
+                + "and execution_period >= '2000-01-01' order by execution_period, id limit 11");
+
+        assertTrue(plan, plan.contains("documents_execution_period_id_active_index"));
+    }
+
+    /**
+     * Loading document people by foreign key
+     */
+    @Test
+    public void testDocumentsByCustomer() throws Exception {
+        String plan = explain("select * from documents where customer_id = 1");
+
+        assertTrue(plan, plan.contains("documents_customer_id_index"));
+    }
+
+    /**
+     * Person list sorted by last name
+     */
+    @Test
+    public void testPersonByLastName() throws Exception {
+        String plan = explain("select * from persons where is_deleted = false order by last_name, id limit 11");
+
+        assertTrue(plan, plan.contains("persons_last_name_id_active_index"));
+    }
+
+    /**
+     * Login searches person by username
+     */
+    @Test
+    public void testPersonByUsername() throws Exception {
+        String plan = explain("select * from persons where username = 'admin'");
+
+        assertTrue(plan, plan.contains("persons_username_unique_index"));
+    }
+
+    /**
+     * Username can not be registered twice, even after soft delete of the first person
+     */
+    @Test(expected = SQLException.class)
+    public void testPersonUsernameUnique() throws Exception {
+        try (Statement stmt = con.createStatement()) {
+            stmt.execute("insert into persons (username, password, first_name, last_name, birth_date, is_deleted) "
+                    + "values ('twice', 'p', 'f', 'l', '2000-01-01', true)");
+            stmt.execute("insert into persons (username, password, first_name, last_name, birth_date, is_deleted) "
+                    + "values ('twice', 'p', 'f', 'l', '2000-01-01', false)");
+        }
+    }
+
+    /**
+     * Case insensitive substring search by title
+     */
+    @Test
+    public void testDocumentTitleSubstring() throws Exception {
+        String plan = explain("select * from documents where lower(title) like '%contract%' escape '\\'");
+
+        assertTrue(plan, plan.contains("documents_title_trgm_index"));
+    }
+
+    /**
+     * Case insensitive substring search by last name
+     */
+    @Test
+    public void testPersonLastNameSubstring() throws Exception {
+        String plan = explain("select * from persons where lower(last_name) like '%ova%' escape '\\'");
+
+        assertTrue(plan, plan.contains("persons_last_name_trgm_index"));
+    }
+
+    /**
+     * Full text search reads documents from search vector index
+     */
+    @Test
+    public void testDocumentFullTextSearch() throws Exception {
+        String plan = explain("select d.id from documents d, plainto_tsquery('simple', 'ready') query "
+                + "where d.search_vector @@ query and d.is_deleted = false");
+
+        assertTrue(plan, plan.contains("documents_search_vector_index"));
+    }
+
+    /**
+     * Search vector is filled by trigger and follows person name changes
+     */
+    @Test
+    public void testSearchVectorTrigger() throws Exception {
+        try (Statement stmt = con.createStatement()) {
+            stmt.execute("update persons set first_name = 'Zebediah' where id = "
+                    + "(select customer_id from documents where customer_id is not null limit 1)");
+        }
+
+        assertTrue(countSearch("zebediah") > 0);
+    }
+
+    /**
+     * Open a connection to database and disable sequential scan
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setup() throws Exception {
+        DataSource ds = (DataSource) context.getBean("dataSource");
+
+        con = ds.getConnection();
+        con.setAutoCommit(false);
+
+        try (Statement stmt = con.createStatement()) {
+            stmt.execute("set local enable_seqscan = off");
+        }
+    }
+
+    /**
+     * Close the connection
+     *
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        if (con != null && !con.isClosed()) {
+            con.rollback();
+            con.close();
+        }
+        con = null;
+    }
+
+    /**
+     * Counts documents found by full text search
+     *
+     * @param text Words to search
+     * @return Number of documents
+     * @throws Exception
+     */
+    private int countSearch(String text) throws Exception {
+        try (Statement stmt = con.createStatement();
+             ResultSet rs = stmt.executeQuery("select count(*) from documents "
+                     + "where search_vector @@ plainto_tsquery('simple', '" + text + "')")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    /**
+     * Returns query plan as one string
+     *
+     * @param query Sql query
+     * @return Query plan
+     * @throws Exception
+     */
+    private String explain(String query) throws Exception {
+        StringBuilder plan = new StringBuilder();
+
+        try (Statement stmt = con.createStatement();
+             ResultSet rs = stmt.executeQuery("explain " + query)) {
+            while (rs.next()) {
+                plan.append(rs.getString(1)).append('\n');
+            }
+        }
+
+        return plan.toString();
+    }
+}
@@ -1,10 +1,18 @@
 package olizarovich.probation.rest.test.repositories;
 
 import olizarovich.probation.rest.models.Document;
+import olizarovich.probation.rest.models.DocumentView;
 import olizarovich.probation.rest.models.Person;
+import olizarovich.probation.rest.queries.DocumentQuery;
 import olizarovich.probation.rest.repositories.DocumentRepository;
 import olizarovich.probation.rest.repositories.PersonRepository;
+import olizarovich.probation.rest.services.DocumentService;
+import olizarovich.probation.rest.specifications.Range;
+import olizarovich.probation.rest.specifications.SearchCriteria;
 import olizarovich.probation.rest.specifications.SpecificationsBuilder;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,12 +26,17 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Class for testing DocumentRepository using h2 in memory database
  */
 @RunWith(SpringRunner.class)
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "olizarovich.probation.rest.test.repositories.SqlRecorder")
 public class DocumentRepositoryIntegrationTest {
     @Autowired
     private TestEntityManager entityManager;
@@ -120,6 +133,200 @@ public class DocumentRepositoryIntegrationTest {
         assertEquals(documents.size(), found.size());
     }
 
+    /**
+     * Documents saved in chunks should get ids from sequence and be detached
+     */
+    @Test
+    public void testSaveInChunks() {
+        List<Person> persons = createPersonsData();
+        loadPersonsDate(persons);
+        List<Document> documents = createDocumentsData(persons);
+
+        List<Document> saved = documentRepository.saveInChunks(documents, 4);
+
+        assertEquals(documents.size(), saved.stream().map(Document::getId).distinct().count());
+        assertFalse(entityManager.getEntityManager().contains(saved.get(0)));
+        assertEquals(documents.size(), documentRepository.count());
+    }
+
+    /**
+     * Reading through cursor should return all matching documents in sort order.
+     * Customer and executor should be loaded by the same query
+     */
+    @Test
+    public void testScrollAll() {
+        List<Document> documents = initTestData();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        DocumentQuery query = DocumentQuery.builder().setSort(DocumentService.DocumentSort.TITLE).build();
+        List<String> titles = new ArrayList<>();
+        Set<String> customers = new HashSet<>();
+        documentRepository.scrollAll(query.getFilter(), query.getSort(), 2, d -> {
+            titles.add(d.getTitle());
+            customers.add(d.getCustomer().getLastName() + d.getExecutor().getLastName());
+        });
+
+        List<String> sorted = new ArrayList<>(titles);
+        Collections.sort(sorted);
+
+        assertEquals(documents.size(), titles.size());
+        assertEquals(sorted, titles);
+        assertFalse(customers.isEmpty());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Reading fields through cursor should apply filter on joined person and should not create entities
+     */
+    @Test
+    public void testScrollFields() {
+        initTestData();
+        entityManager.clear();
+
+        DocumentQuery query = DocumentQuery.builder()
+                .filterByCustomerLastName("xela")
+                .setSort(DocumentService.DocumentSort.EXECUTORLASTNAME)
+                .build();
+        List<Object[]> rows = new ArrayList<>();
+        documentRepository.scrollFields(query.getFilter(), query.getSort(),
+                Arrays.asList("id", "title", "customer.id", "executor.lastName"), 2, rows::add);
+
+        long expected = documentRepository.count(query.getFilter());
+        assertTrue(expected > 0);
+        assertEquals(expected, rows.size());
+        assertEquals(4, rows.get(0).length);
+        assertTrue(rows.get(0)[2] instanceof Integer);
+        assertTrue(((String) rows.get(0)[3]).compareTo((String) rows.get(rows.size() - 1)[3]) <= 0);
+        assertEquals(0, entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount());
+    }
+
+    /**
+     * Projection should be filtered and sorted by customer without creating entities
+     */
+    @Test
+    public void testFindSliceProjection() {
+        initTestData();
+        entityManager.clear();
+
+        DocumentQuery query = DocumentQuery.builder()
+                .filterByCustomerLastName("xela")
+                .setSort(DocumentService.DocumentSort.EXECUTORLASTNAME)
+                .setPage(0, 2)
+                .build();
+        Slice<DocumentView> found = documentRepository.findSlice(query.getSpecification(), query.getPageable(),
+                DocumentView.projection);
+
+        assertEquals(2, found.getNumberOfElements());
+        assertTrue(found.hasNext());
+        assertEquals("xela", found.getContent().get(0).getCustomer().getLastName());
+        assertTrue(found.getContent().get(0).getExecutor().getLastName()
+                .compareTo(found.getContent().get(1).getExecutor().getLastName()) <= 0);
+        assertEquals(0, entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount());
+    }
+
+    /**
+     * Sparse projection should select only requested columns and join persons only if requested
+     */
+    @Test
+    public void testFindSliceSparseProjection() {
+        initTestData();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        DocumentQuery query = DocumentQuery.builder()
+                .setSort(DocumentService.DocumentSort.TITLE)
+                .setPage(0, 2)
+                .build();
+        Slice<DocumentView> found = documentRepository.findSlice(query.getSpecification(), query.getPageable(),
+                DocumentView.projection(new HashSet<>(Arrays.asList("id", "title"))));
+
+        assertEquals(2, found.getNumberOfElements());
+        assertTrue(found.getContent().get(0).getTitle()
+                .compareTo(found.getContent().get(1).getTitle()) <= 0);
+        assertNull(found.getContent().get(0).getStatus());
+        assertNull(found.getContent().get(0).getCustomer());
+        assertFalse(statistics.getQueries()[0].contains("join"));
+
+        found = documentRepository.findSlice(query.getSpecification(), query.getPageable(),
+                DocumentView.projection(new HashSet<>(Arrays.asList("id", "title", "customer"))));
+
+        assertNotNull(found.getContent().get(0).getCustomer().getLastName());
+        assertNull(found.getContent().get(0).getExecutor());
+        assertEquals(0, entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount());
+    }
+
+    /**
+     * Filter on joined person should be applied by one update statement
+     */
+    @Test
+    public void testUpdateAllByFilter() {
+        initTestData();
+
+        DocumentQuery query = DocumentQuery.builder()
+                .filterByCustomerLastName("xela")
+                .filterByStatus("Ready")
+                .build();
+
+        int updated = documentRepository.updateAll(query.getFilter(), "status", "Done");
+        entityManager.clear();
+
+        assertEquals(1, updated);
+        assertEquals(1, documentRepository.count(DocumentQuery.builder().filterByStatus("Done").build().getFilter()));
+        assertEquals(2, documentRepository.count(DocumentQuery.builder().filterByStatus("Ready").build().getFilter()));
+    }
+
+    /**
+     * Ids of set based soft delete and values of update are bound as parameters, numbers are not inlined
+     */
+    @Test
+    public void testSetBasedUpdatesBindParameters() {
+        List<Document> documents = initTestData();
+        List<Integer> ids = Arrays.asList(documents.get(0).getId(), documents.get(1).getId(), documents.get(2).getId());
+
+        SpecificationsBuilder<Document> customers = new SpecificationsBuilder<>();
+        customers.with("customer.id", "in", Collections.singletonList(documents.get(0).getCustomer().getId()));
+
+        SqlRecorder.clear();
+        assertEquals(3, documentRepository.softDeleteAllById(ids));
+        assertEquals(3, documentRepository.restoreAllById(ids));
+        assertEquals(3, documentRepository.updateAll(customers.build(), "executionPeriod", LocalDate.of(2021, 1, 1)));
+        List<String> statements = SqlRecorder.getStatements();
+
+        assertEquals(statements.toString(), 3, statements.size());
+        assertTrue(statements.toString(), statements.get(0).endsWith("idin(?,?,?,?)"));
+        assertEquals(statements.get(0), statements.get(1));
+        assertTrue(statements.toString(), statements.get(2).contains("execution_period=?"));
+        assertTrue(statements.toString(), statements.get(2).contains("customer_idin(?)"));
+        statements.forEach(i -> assertFalse(statements.toString(), i.matches(".*(in\\(|=)[0-9].*")));
+    }
+
+    /**
+     * Query builder can be reused, soft delete flag of the first query is not kept in builder
+     */
+    @Test
+    public void testQueryBuilderReuse() {
+        List<Document> documents = initTestData();
+        documentRepository.softDeleteAllById(Collections.singletonList(documents.get(0).getId()));
+        entityManager.clear();
+
+        DocumentQuery.Builder builder = DocumentQuery.builder();
+        DocumentQuery active = builder.build();
+        DocumentQuery all = builder.includeDeleted().build();
+
+        assertFalse(all.isFiltered());
+        assertEquals(documents.size() - 1, documentRepository.count(active.getFilter()));
+        assertEquals(documents.size(), documentRepository.count(all.getFilter()));
+    }
+
     /**
      * Testing findAll repository methods with pagination
      */
@@ -134,6 +341,43 @@ public class DocumentRepositoryIntegrationTest {
         assertEquals(2, found.size());
     }
 
+    /**
+     * Testing findSlice repository method. Slice knows about next page without count query
+     */
+    @Test
+    public void testSliceFilter() {
+        initTestData();
+
+        Slice<Document> first = documentRepository.findSlice(null, PageRequest.of(0, 4, Sort.by("id")));
+        Slice<Document> last = documentRepository.findSlice(null, PageRequest.of(2, 4, Sort.by("id")));
+
+        assertEquals(4, first.getNumberOfElements());
+        assertTrue(first.hasNext());
+        assertEquals(1, last.getNumberOfElements());
+        assertFalse(last.hasNext());
+    }
+
+    /**
+     * Testing that page of documents loads customers, executors and their roles
+     * with bounded number of statements instead of query per person
+     */
+    @Test
+    public void testSliceLoadsPersonsWithoutNPlusOne() {
+        initTestData();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        Slice<Document> found = documentRepository.findSlice(null, PageRequest.of(0, 9, Sort.by("id")));
+        found.forEach(d -> d.getCustomer().getRoles().size());
+
+        assertEquals(9, found.getNumberOfElements());
+        assertTrue(statistics.getPrepareStatementCount() <= 2);
+    }
+
     /**
      * Testing findAll repository methods with equality filter
      */
@@ -165,6 +409,167 @@ public class DocumentRepositoryIntegrationTest {
         assertEquals(3, found.size());
     }
 
+    /**
+     * Testing findAll repository methods with date comparison filter
+     */
+    @Test
+    public void testGreaterThanDateFilter() {
+        initTestData();
+
+        SpecificationsBuilder<Document> specificationsBuilder = new SpecificationsBuilder<>();
+        specificationsBuilder.with("creationDate", ">", LocalDate.of(2000, 2, 1));
+
+        List<Document> found = documentRepository.findAll(specificationsBuilder.build());
+
+        assertEquals(6, found.size());
+    }
+
+    /**
+     * Testing findAll repository methods with date range filter. Bounds are inclusive
+     */
+    @Test
+    public void testBetweenDateFilter() {
+        initTestData();
+
+        SpecificationsBuilder<Document> specificationsBuilder = new SpecificationsBuilder<>();
+        specificationsBuilder.with("executionPeriod", "..",
+                new Range<>(LocalDate.of(2000, 2, 1), LocalDate.of(2000, 3, 1)));
+
+        List<Document> found = documentRepository.findAll(specificationsBuilder.build());
+
+        assertEquals(6, found.size());
+    }
+
+    /**
+     * Testing findAll repository methods with lower and upper bound on the same field
+     */
+    @Test
+    public void testDateWindowFilter() {
+        initTestData();
+
+        SpecificationsBuilder<Document> specificationsBuilder = new SpecificationsBuilder<>();
+        specificationsBuilder.with("creationDate", ">", LocalDate.of(2000, 1, 15))
+                .with("creationDate", "<", LocalDate.of(2000, 2, 15))
+                .with("creationDate", "<", LocalDate.of(2000, 3, 15));
+
+        List<Document> found = documentRepository.findAll(specificationsBuilder.build());
+
+        assertEquals(3, found.size());
+        assertTrue(found.stream().allMatch(i -> i.getCreationDate().equals(LocalDate.of(2000, 2, 1))));
+    }
+
+    /**
+     * Testing findAll repository methods with set membership filters
+     */
+    @Test
+    public void testInFilter() {
+        initTestData();
+
+        SpecificationsBuilder<Document> in = new SpecificationsBuilder<>();
+        in.with("status", "in", Arrays.asList("Ready", "Unknown"));
+
+        SpecificationsBuilder<Document> notIn = new SpecificationsBuilder<>();
+        notIn.with("status", "!in", Arrays.asList("Ready", "Unknown"));
+
+        SpecificationsBuilder<Document> empty = new SpecificationsBuilder<>();
+        empty.with("status", "in", Collections.emptyList());
+
+        assertEquals(6, documentRepository.findAll(in.build()).size());
+        assertEquals(3, documentRepository.findAll(notIn.build()).size());
+        assertEquals(0, documentRepository.findAll(empty.build()).size());
+    }
+
+    /**
+     * Values of set membership filter should be bound as one padded list parameter, numbers are not inlined
+     */
+    @Test
+    public void testInFilterBindsList() {
+        List<Document> documents = initTestData();
+        int customerId = documents.get(0).getCustomer().getId();
+
+        SpecificationsBuilder<Document> statuses = new SpecificationsBuilder<>();
+        statuses.with("status", "in", Arrays.asList("Ready", "Unknown", "Other"));
+
+        SpecificationsBuilder<Document> customers = new SpecificationsBuilder<>();
+        customers.with("customer.id", "in", Arrays.asList(customerId, -1, -2));
+
+        SqlRecorder.clear();
+        assertEquals(6, documentRepository.findAll(statuses.build()).size());
+        assertEquals(3, documentRepository.findAll(customers.build()).size());
+        List<String> statements = SqlRecorder.getStatements();
+
+        assertTrue(statements.toString(), statements.get(0).contains("statusin(?,?,?,?)"));
+        assertTrue(statements.toString(), statements.get(1).contains("customer_idin(?,?,?,?)"));
+        assertFalse(statements.toString(), statements.get(1).matches(".*in\\([0-9].*"));
+    }
+
+    /**
+     * Testing findAll repository methods with group of criteria. Any criteria of group should match
+     */
+    @Test
+    public void testAnyOfFilter() {
+        List<Document> documents = initTestData();
+        List<Integer> personId = Collections.singletonList(documents.get(0).getCustomer().getId());
+
+        SpecificationsBuilder<Document> specificationsBuilder = new SpecificationsBuilder<>();
+        specificationsBuilder.withAnyOf(
+                new SearchCriteria("customer.id", "in", personId),
+                new SearchCriteria("executor.id", "in", personId))
+                .with("status", "!", "Unknown");
+
+        List<Document> found = documentRepository.findAll(specificationsBuilder.build());
+
+        assertEquals(4, found.size());
+    }
+
+    /**
+     * Testing findAll repository methods with precompiled filters of DocumentQuery
+     */
+    @Test
+    public void testQueryFilters() {
+        initTestData();
+
+        DocumentQuery query = DocumentQuery.builder()
+                .filterByCustomerLastName("XELA")
+                .filterByCreationDateMoreThan(LocalDate.of(2000, 2, 1))
+                .build();
+
+        List<Document> found = documentRepository.findAll(query.getSpecification());
+
+        assertEquals(2, found.size());
+        assertTrue(found.stream().allMatch(i -> i.getCustomer().getLastName().equals("xela")));
+    }
+
+    /**
+     * Testing findAll repository methods with like filter. Case should be ignored
+     */
+    @Test
+    public void testLikeFilterIgnoresCase() {
+        initTestData();
+
+        SpecificationsBuilder<Document> specificationsBuilder = new SpecificationsBuilder<>();
+        specificationsBuilder.with("title", "~", "JOHNdoc");
+
+        List<Document> found = documentRepository.findAll(specificationsBuilder.build());
+
+        assertEquals(3, found.size());
+    }
+
+    /**
+     * Testing findAll repository methods with like filter. Wildcards should be searched as plain text
+     */
+    @Test
+    public void testLikeFilterEscapesWildcards() {
+        initTestData();
+
+        SpecificationsBuilder<Document> specificationsBuilder = new SpecificationsBuilder<>();
+        specificationsBuilder.with("title", "~", "_%");
+
+        List<Document> found = documentRepository.findAll(specificationsBuilder.build());
+
+        assertEquals(0, found.size());
+    }
+
     /**
      * Testing findAll repository methods with equality filter and pagination
      */
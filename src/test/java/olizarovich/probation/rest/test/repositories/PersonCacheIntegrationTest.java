@@ -0,0 +1,152 @@
+package olizarovich.probation.rest.test.repositories;
+
+import olizarovich.probation.rest.models.Person;
+import olizarovich.probation.rest.models.Role;
+import olizarovich.probation.rest.repositories.PersonRepository;
+import olizarovich.probation.rest.repositories.RoleRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Class for testing second level cache of persons and roles using h2 in memory database.
+ * Every repository call runs in own transaction, so cache is filled and read between calls.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@ContextConfiguration(classes = RepositoryTestConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class PersonCacheIntegrationTest {
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+
+    private Person person;
+
+    @Before
+    public void setUp() {
+        String username = UUID.randomUUID().toString();
+        person = personRepository.save(new Person(username, "password", "alex", "xela", LocalDate.of(2000, 1, 1)));
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    /**
+     * Data is committed by repositories, so created rows and cache entries are removed after every test
+     */
+    @After
+    public void tearDown() {
+        jdbcTemplate.update("delete from roles where person_id = ?", person.getId());
+        jdbcTemplate.update("delete from persons where id = ?", person.getId());
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    /**
+     * Second search by id should be answered by cache
+     */
+    @Test
+    public void testFindByIdUsesCache() {
+        personRepository.findById(person.getId());
+        personRepository.findById(person.getId());
+
+        long hits = statistics.getDomainDataRegionStatistics(Person.class.getName()).getHitCount();
+        assertTrue(hits >= 1);
+    }
+
+    /**
+     * Soft delete by update query should invalidate cached person
+     */
+    @Test
+    public void testSoftDeleteEvictsCache() {
+        personRepository.findById(person.getId());
+
+        personRepository.deleteById(person.getId());
+
+        assertTrue(personRepository.findById(person.getId()).get().getDeleted());
+    }
+
+    /**
+     * Role saved through repository should be visible in cached person
+     */
+    @Test
+    public void testSavedRoleEvictsCachedRoles() {
+        roleRepository.save(role("ROLE_USER"));
+        assertEquals(1, personRepository.findById(person.getId()).get().getRoles().size());
+
+        roleRepository.save(role("ROLE_ADMIN"));
+        assertEquals(2, personRepository.findById(person.getId()).get().getRoles().size());
+    }
+
+    /**
+     * Roles saved or deleted by any write method of repository should be visible in cached person
+     */
+    @Test
+    public void testEveryWriteEvictsCachedRoles() {
+        List<Role> roles = roleRepository.saveAll(Arrays.asList(role("ROLE_USER"), role("ROLE_ADMIN")));
+        assertEquals(2, personRepository.findById(person.getId()).get().getRoles().size());
+
+        roleRepository.delete(roles.get(0));
+        assertEquals(1, personRepository.findById(person.getId()).get().getRoles().size());
+
+        Role user = roleRepository.saveAndFlush(role("ROLE_USER"));
+        assertEquals(2, personRepository.findById(person.getId()).get().getRoles().size());
+
+        roleRepository.deleteInBatch(Collections.singletonList(roles.get(1)));
+        assertEquals(1, personRepository.findById(person.getId()).get().getRoles().size());
+
+        roleRepository.deleteById(user.getId());
+        assertEquals(0, personRepository.findById(person.getId()).get().getRoles().size());
+
+        roleRepository.saveAll(Arrays.asList(role("ROLE_USER"), role("ROLE_ADMIN")));
+        assertEquals(2, personRepository.findById(person.getId()).get().getRoles().size());
+
+        roleRepository.deleteAll(roleRepository.findAll());
+        assertEquals(0, personRepository.findById(person.getId()).get().getRoles().size());
+
+        roleRepository.save(role("ROLE_USER"));
+        assertEquals(1, personRepository.findById(person.getId()).get().getRoles().size());
+
+        roleRepository.deleteAllInBatch();
+        assertEquals(0, personRepository.findById(person.getId()).get().getRoles().size());
+    }
+
+    private Role role(String name) {
+        Role role = new Role();
+        role.setPersonId(person.getId());
+        role.setRole(name);
+
+        return role;
+    }
+}
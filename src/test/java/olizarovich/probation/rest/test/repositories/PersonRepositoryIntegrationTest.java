@@ -8,12 +8,15 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
@@ -70,6 +73,18 @@ public class PersonRepositoryIntegrationTest {
         assertEquals(found.size(), persons.size());
     }
 
+    /**
+     * Username is unique for all persons, including soft deleted ones
+     */
+    @Test(expected = DataIntegrityViolationException.class)
+    public void testUsernameUnique() {
+        Person deleted = new Person("twice", "twice", "twice", "twice", LocalDate.of(2000, 1, 1));
+        deleted.setDeleted(true);
+        personRepository.saveAndFlush(deleted);
+
+        personRepository.saveAndFlush(new Person("twice", "twice", "twice", "twice", LocalDate.of(2000, 1, 1)));
+    }
+
     /**
      * Testing findAll repository methods with pagination
      */
@@ -209,6 +224,23 @@ public class PersonRepositoryIntegrationTest {
         assertEquals(3, personRepository.findByIsDeleted(true).size());
     }
 
+    /**
+     * Set based soft delete and restore should report number of updated rows
+     */
+    @Test
+    public void testSoftDeleteAndRestoreAllById() {
+        List<Person> persons = initTestData();
+        initDatabase(persons);
+
+        List<Integer> ids = Arrays.asList(persons.get(0).getId(), persons.get(1).getId(), persons.get(1).getId());
+
+        assertEquals(2, personRepository.softDeleteAllById(ids));
+        assertEquals(2, personRepository.findByIsDeleted(true).size());
+
+        assertEquals(1, personRepository.restoreAllById(Collections.singletonList(persons.get(0).getId())));
+        assertEquals(1, personRepository.findByIsDeleted(true).size());
+    }
+
     @Test
     public void testCountWithFilter() {
         List<Person> persons = initTestData();
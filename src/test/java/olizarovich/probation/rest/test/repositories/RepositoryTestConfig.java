@@ -1,6 +1,7 @@
 package olizarovich.probation.rest.test.repositories;
 
 import olizarovich.probation.rest.repositories.PersonRepository;
+import olizarovich.probation.rest.repositories.implementation.CrudSoftDeleteRepositoryImplementation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringBootConfiguration;
 import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
@@ -12,7 +13,8 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 @SpringBootConfiguration
-@EnableJpaRepositories({"olizarovich.probation.rest.repositories"})
+@EnableJpaRepositories(value = {"olizarovich.probation.rest.repositories"},
+        repositoryBaseClass = CrudSoftDeleteRepositoryImplementation.class)
 @EntityScan("olizarovich.probation.rest.models")
 @EnableTransactionManagement
 @AutoConfigurationPackage
@@ -0,0 +1,42 @@
+package olizarovich.probation.rest.test.repositories;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records SQL statements prepared by Hibernate, so tests can check rendered SQL.
+ * Registered with hibernate.session_factory.statement_inspector property.
+ */
+public class SqlRecorder implements StatementInspector {
+    private static final List<String> statements = new ArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        synchronized (statements) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * Forgets recorded statements
+     */
+    public static void clear() {
+        synchronized (statements) {
+            statements.clear();
+        }
+    }
+
+    /**
+     * @return Statements recorded after last clear, spaces are removed
+     */
+    public static List<String> getStatements() {
+        List<String> result = new ArrayList<>();
+        synchronized (statements) {
+            statements.forEach(i -> result.add(i.replace(" ", "")));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,149 @@
+package olizarovich.probation.rest.test.security;
+
+import olizarovich.probation.rest.exceptions.PasswordHashingBusyException;
+import olizarovich.probation.rest.security.BoundedPasswordEncoder;
+import olizarovich.probation.rest.security.LoginThrottle;
+import olizarovich.probation.rest.security.ThrottlingAuthenticationProvider;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Class for testing password hashing on bounded executor
+ */
+public class BoundedPasswordEncoderTest {
+    private BoundedPasswordEncoder encoder;
+
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        callers.shutdownNow();
+        encoder.destroy();
+    }
+
+    @Test
+    public void testEncodeAndMatch() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 2, 10, Duration.ofSeconds(10));
+
+        String hash = encoder.encode("password");
+
+        assertTrue(encoder.matches("password", hash));
+        assertFalse(encoder.matches("other", hash));
+    }
+
+    /**
+     * Task should be rejected when hashing thread and queue are busy
+     */
+    @Test
+    public void testFullQueueIsRejected() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(new BlockingEncoder(started, release), 1, 1, Duration.ofSeconds(10));
+
+        callers.submit(() -> encoder.encode("first"));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        callers.submit(() -> encoder.encode("second"));
+        while (encoder.getExecutor().getQueue().isEmpty()) {
+            Thread.sleep(1);
+        }
+
+        try {
+            encoder.encode("third");
+        } catch (PasswordHashingBusyException ex) {
+            assertEquals(1, encoder.getRejectedCount());
+            return;
+        } finally {
+            release.countDown();
+        }
+
+        throw new AssertionError("Hashing was not rejected");
+    }
+
+    /**
+     * Waiting longer than timeout should be rejected
+     */
+    @Test(expected = PasswordHashingBusyException.class)
+    public void testTimeoutIsRejected() {
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(new BlockingEncoder(new CountDownLatch(1), release), 1, 1,
+                Duration.ofMillis(50));
+
+        try {
+            encoder.encode("password");
+        } finally {
+            release.countDown();
+        }
+    }
+
+    /**
+     * Login of unknown username hashes dummy password against timing attacks.
+     * When hashing is busy it should be reported as busy, not as bad credentials
+     */
+    @Test(expected = PasswordHashingBusyException.class)
+    public void testUnknownUsernameWhileBusy() {
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(new BlockingEncoder(new CountDownLatch(1), release), 1, 1,
+                Duration.ofMillis(50));
+
+        DaoAuthenticationProvider dao = new DaoAuthenticationProvider();
+        dao.setUserDetailsService(username -> {
+            throw new UsernameNotFoundException(username);
+        });
+        dao.setPasswordEncoder(encoder);
+        ThrottlingAuthenticationProvider provider = new ThrottlingAuthenticationProvider(dao,
+                new LoginThrottle(1024, 10, Duration.ofMinutes(1), Clock.systemUTC()),
+                new LoginThrottle(1024, 10, Duration.ofMinutes(1), Clock.systemUTC()));
+
+        try {
+            provider.authenticate(new UsernamePasswordAuthenticationToken("unknown", "password"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    /**
+     * Encoder waiting for release, used to keep hashing thread busy
+     */
+    private static class BlockingEncoder implements PasswordEncoder {
+        private final CountDownLatch started;
+
+        private final CountDownLatch release;
+
+        BlockingEncoder(CountDownLatch started, CountDownLatch release) {
+            this.started = started;
+            this.release = release;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return rawPassword.toString().equals(encodedPassword);
+        }
+    }
+}
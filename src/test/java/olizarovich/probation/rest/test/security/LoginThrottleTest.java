@@ -0,0 +1,164 @@
+package olizarovich.probation.rest.test.security;
+
+import olizarovich.probation.rest.exceptions.LoginAttemptsExceededException;
+import olizarovich.probation.rest.exceptions.PasswordHashingBusyException;
+import olizarovich.probation.rest.security.LoginThrottle;
+import olizarovich.probation.rest.security.ThrottlingAuthenticationProvider;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * Class for testing login attempts limiter
+ */
+public class LoginThrottleTest {
+    private MutableClock clock;
+
+    private LoginThrottle throttle;
+
+    @Before
+    public void setUp() {
+        clock = new MutableClock(Instant.parse("2020-01-01T00:00:00Z"));
+        throttle = new LoginThrottle(1024, 3, Duration.ofMinutes(1), clock);
+    }
+
+    @Test
+    public void testAttemptsOverLimitAreRejected() {
+        assertTrue(throttle.tryAcquire("user"));
+        assertTrue(throttle.tryAcquire("user"));
+        assertTrue(throttle.tryAcquire("user"));
+        assertFalse(throttle.tryAcquire("user"));
+
+        assertTrue(throttle.tryAcquire("other"));
+    }
+
+    /**
+     * Counter should be halved after every half life
+     */
+    @Test
+    public void testAttemptsDecay() {
+        for (int i = 0; i < 4; i++) {
+            throttle.tryAcquire("user");
+        }
+
+        clock.plus(Duration.ofSeconds(59));
+        assertEquals(4, throttle.attempts("user"));
+
+        clock.plus(Duration.ofSeconds(1));
+        assertEquals(2, throttle.attempts("user"));
+        assertTrue(throttle.tryAcquire("user"));
+
+        clock.plus(Duration.ofMinutes(10));
+        assertEquals(0, throttle.attempts("user"));
+    }
+
+    /**
+     * Concurrent attempts should not be lost
+     */
+    @Test
+    public void testConcurrentAttemptsAreCounted() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    throttle.tryAcquire("user");
+                }
+            }));
+        }
+        for (Future<?> i : futures) {
+            i.get();
+        }
+        executor.shutdown();
+
+        assertEquals(8000, throttle.attempts("user"));
+    }
+
+    /**
+     * Blocked username should be rejected before password check
+     */
+    @Test
+    public void testProviderRejectsBeforeDelegate() {
+        AuthenticationProvider delegate = Mockito.mock(AuthenticationProvider.class);
+        ThrottlingAuthenticationProvider provider = new ThrottlingAuthenticationProvider(delegate, throttle,
+                new LoginThrottle(1024, 100, Duration.ofMinutes(1), clock));
+        UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken("user", "password");
+
+        for (int i = 0; i < 3; i++) {
+            provider.authenticate(token);
+        }
+
+        try {
+            provider.authenticate(token);
+        } catch (LoginAttemptsExceededException ex) {
+            Mockito.verify(delegate, Mockito.times(3)).authenticate(any());
+            return;
+        }
+
+        throw new AssertionError("Login attempt was not rejected");
+    }
+
+    /**
+     * Rejected hashing wrapped by provider should reach failure handler unwrapped
+     */
+    @Test(expected = PasswordHashingBusyException.class)
+    public void testProviderUnwrapsBusyHashing() {
+        AuthenticationProvider delegate = Mockito.mock(AuthenticationProvider.class);
+        Mockito.when(delegate.authenticate(any())).thenThrow(
+                new InternalAuthenticationServiceException("busy", new PasswordHashingBusyException()));
+        ThrottlingAuthenticationProvider provider = new ThrottlingAuthenticationProvider(delegate, throttle,
+                new LoginThrottle(1024, 100, Duration.ofMinutes(1), clock));
+
+        provider.authenticate(new UsernamePasswordAuthenticationToken("user", "password"));
+    }
+
+    /**
+     * Clock moved by test
+     */
+    private static class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void plus(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package olizarovich.probation.rest.test.security;
+
+import olizarovich.probation.rest.security.PersonDetails;
+import olizarovich.probation.rest.security.SignedTokenService;
+import olizarovich.probation.rest.security.TokenAuthentication;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Class for testing signed tokens
+ */
+public class SignedTokenServiceTest {
+    private static final byte[] secret = "0123456789abcdef0123456789abcdef".getBytes();
+
+    private static final Instant now = Instant.parse("2020-01-01T00:00:00Z");
+
+    private SignedTokenService service;
+
+    private PersonDetails person;
+
+    @Before
+    public void setUp() {
+        service = new SignedTokenService(secret, Duration.ofHours(1), Clock.fixed(now, ZoneOffset.UTC));
+        person = new PersonDetails(7, "user:name", "password",
+                AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN"));
+    }
+
+    /**
+     * Verified token should contain person id, username and authorities
+     */
+    @Test
+    public void testVerifyIssuedToken() {
+        TokenAuthentication authentication = service.verify(service.issue(person));
+
+        assertEquals(Integer.valueOf(7), authentication.getPersonId());
+        assertEquals("user:name", authentication.getPrincipal());
+        assertEquals(person.getAuthorities().size(), authentication.getAuthorities().size());
+    }
+
+    /**
+     * Token with changed payload or signature should be rejected
+     */
+    @Test
+    public void testTamperedTokenIsRejected() {
+        String token = service.issue(person);
+        char[] chars = token.toCharArray();
+        chars[2] = chars[2] == 'A' ? 'B' : 'A';
+
+        assertNull(service.verify(new String(chars)));
+        assertNull(service.verify(token.substring(0, token.length() - 1) + "x"));
+        assertNull(service.verify("token"));
+
+        byte[] otherSecret = Arrays.copyOf(secret, secret.length);
+        otherSecret[0]++;
+        SignedTokenService other = new SignedTokenService(otherSecret, Duration.ofHours(1),
+                Clock.fixed(now, ZoneOffset.UTC));
+        assertNull(other.verify(token));
+    }
+
+    /**
+     * Token should be rejected after time to live
+     */
+    @Test
+    public void testExpiredTokenIsRejected() {
+        String token = service.issue(person);
+        SignedTokenService later = new SignedTokenService(secret, Duration.ofHours(1),
+                Clock.fixed(now.plus(Duration.ofHours(2)), ZoneOffset.UTC));
+
+        assertNull(later.verify(token));
+    }
+}
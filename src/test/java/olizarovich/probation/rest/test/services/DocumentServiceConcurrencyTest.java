@@ -0,0 +1,134 @@
+package olizarovich.probation.rest.test.services;
+
+import olizarovich.probation.rest.models.Document;
+import olizarovich.probation.rest.queries.DocumentQuery;
+import olizarovich.probation.rest.repositories.DocumentRepository;
+import olizarovich.probation.rest.services.DocumentService;
+import olizarovich.probation.rest.services.implementation.DocumentServiceImplementation;
+import olizarovich.probation.rest.test.repositories.RepositoryTestConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Stress test for service search from many threads.
+ * Every thread uses own filter, results must not contain entities of other filters.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@ContextConfiguration(classes = RepositoryTestConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class DocumentServiceConcurrencyTest {
+    private static final String[] titles = new String[]{"Apple", "Banana", "Cherry", "Kiwi",
+            "Lemon", "Mango", "Orange", "Peach"};
+
+    private static final int threadCount = 8;
+    private static final int iterationCount = 200;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    private DocumentService service;
+
+    /**
+     * For title with index i creates i + 1 documents and one soft deleted document
+     */
+    @Before
+    public void setUp() {
+        service = new DocumentServiceImplementation(documentRepository);
+
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < titles.length; i++) {
+            for (int j = 0; j <= i; j++) {
+                documents.add(createDocument(titles[i], false));
+            }
+            documents.add(createDocument(titles[i], true));
+        }
+
+        documentRepository.saveAll(documents);
+    }
+
+    @After
+    public void tearDown() {
+        documentRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void parallelSearchDoesNotMixFilters() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        List<Callable<Void>> tasks = new ArrayList<>();
+
+        for (int i = 0; i < threadCount; i++) {
+            tasks.add(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int j = 0; j < iterationCount; j++) {
+                    int titleIndex = random.nextInt(titles.length);
+                    boolean includeDeleted = random.nextBoolean();
+                    searchAndVerify(titleIndex, includeDeleted);
+                }
+                return null;
+            });
+        }
+
+        try {
+            for (Future<Void> result : executor.invokeAll(tasks)) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private void searchAndVerify(int titleIndex, boolean includeDeleted) {
+        String title = titles[titleIndex];
+        DocumentQuery.Builder builder = DocumentQuery.builder().filterByTitle(title);
+
+        if (includeDeleted) {
+            builder.includeDeleted();
+        }
+
+        DocumentQuery query = builder.build();
+        int expected = titleIndex + (includeDeleted ? 2 : 1);
+
+        List<Document> found = new ArrayList<>();
+        service.findAll(query).forEach(found::add);
+
+        assertEquals(expected, found.size());
+        assertEquals(expected, service.count(query));
+        for (Document i : found) {
+            assertEquals(title, i.getTitle());
+            assertTrue(includeDeleted || !i.getDeleted());
+        }
+    }
+
+    private Document createDocument(String title, boolean deleted) {
+        Document document = new Document();
+        document.setTitle(title);
+        document.setStatus("Ready");
+        document.setCreationDate(LocalDate.of(2000, 1, 1));
+        document.setExecutionPeriod(LocalDate.of(2000, 2, 1));
+        document.setDeleted(deleted);
+        return document;
+    }
+}
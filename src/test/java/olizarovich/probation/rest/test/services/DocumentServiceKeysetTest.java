@@ -0,0 +1,290 @@
+package olizarovich.probation.rest.test.services;
+
+import olizarovich.probation.rest.models.Document;
+import olizarovich.probation.rest.models.DocumentView;
+import olizarovich.probation.rest.models.Person;
+import olizarovich.probation.rest.queries.CursorPage;
+import olizarovich.probation.rest.queries.DocumentQuery;
+import olizarovich.probation.rest.queries.SearchQuery;
+import olizarovich.probation.rest.repositories.DocumentRepository;
+import olizarovich.probation.rest.repositories.PersonRepository;
+import olizarovich.probation.rest.services.DocumentService;
+import olizarovich.probation.rest.services.implementation.DocumentServiceImplementation;
+import olizarovich.probation.rest.test.repositories.RepositoryTestConfig;
+import olizarovich.probation.rest.test.repositories.SqlRecorder;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Class for testing keyset pagination in service using h2 in memory database
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "olizarovich.probation.rest.test.repositories.SqlRecorder")
+@ContextConfiguration(classes = RepositoryTestConfig.class)
+public class DocumentServiceKeysetTest {
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    private DocumentService service;
+
+    private List<Document> documents;
+
+    /**
+     * Creates 25 documents. Creation dates are repeated to test tie breaking by id
+     */
+    @Before
+    public void setUp() {
+        service = new DocumentServiceImplementation(documentRepository);
+
+        documents = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            Document document = new Document();
+            document.setTitle("Document" + i);
+            document.setStatus("Ready");
+            document.setCreationDate(LocalDate.of(2000, 1, 1).plusDays(i % 4));
+            document.setExecutionPeriod(LocalDate.of(2000, 2, 1));
+            documents.add(document);
+        }
+
+        documents = documentRepository.saveAll(documents);
+    }
+
+    /**
+     * Walks through all pages by cursor. Every document should be found once and in sort order
+     */
+    @Test
+    public void testWalkPagesByCursor() {
+        List<Integer> found = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+
+        do {
+            DocumentQuery query = DocumentQuery.builder()
+                    .setSort(DocumentService.DocumentSort.CREATIONDATE)
+                    .setCursor(cursor, 10)
+                    .build();
+
+            CursorPage<Document> page = service.findPage(query);
+            page.getContent().forEach(d -> found.add(d.getId()));
+            cursor = page.getNext();
+            pages++;
+        } while (cursor != null);
+
+        List<Integer> expected = documents.stream()
+                .sorted(Comparator.comparing(Document::getCreationDate).thenComparing(Document::getId))
+                .map(Document::getId)
+                .collect(Collectors.toList());
+
+        assertEquals(expected, found);
+        assertEquals(3, pages);
+    }
+
+    /**
+     * Projections are paged by the same cursor. Documents have no customer, so persons are joined by outer join
+     */
+    @Test
+    public void testWalkViewPagesByCursor() {
+        List<Integer> found = new ArrayList<>();
+        String cursor = null;
+
+        do {
+            DocumentQuery query = DocumentQuery.builder()
+                    .setSort(DocumentService.DocumentSort.CREATIONDATE)
+                    .setCursor(cursor, 10)
+                    .build();
+
+            CursorPage<DocumentView> page = service.findViewPage(query);
+            page.getContent().forEach(d -> found.add(d.getId()));
+            cursor = page.getNext();
+        } while (cursor != null);
+
+        List<Integer> expected = documents.stream()
+                .sorted(Comparator.comparing(Document::getCreationDate).thenComparing(Document::getId))
+                .map(Document::getId)
+                .collect(Collectors.toList());
+
+        assertEquals(expected, found);
+    }
+
+    /**
+     * Sparse projections have no sort field requested, it is selected for cursor anyway
+     */
+    @Test
+    public void testWalkSparseViewPagesByCursor() {
+        List<Integer> found = new ArrayList<>();
+        String cursor = null;
+
+        do {
+            DocumentQuery query = DocumentQuery.builder()
+                    .setSort(DocumentService.DocumentSort.CREATIONDATE)
+                    .setCursor(cursor, 10)
+                    .build();
+
+            CursorPage<DocumentView> page = service.findViewPage(query, Collections.singleton("title"));
+            page.getContent().forEach(d -> found.add(d.getId()));
+            cursor = page.getNext();
+        } while (cursor != null);
+
+        List<Integer> expected = documents.stream()
+                .sorted(Comparator.comparing(Document::getCreationDate).thenComparing(Document::getId))
+                .map(Document::getId)
+                .collect(Collectors.toList());
+
+        assertEquals(expected, found);
+    }
+
+    /**
+     * Documents without customer have null sort value and are the last ones.
+     * Pages cross the boundary between values and nulls, every document should be found once
+     */
+    @Test
+    public void testWalkPagesAcrossNulls() {
+        Person customer = personRepository.save(new Person("keyset", "keyset", "Keyset", "Keyset",
+                LocalDate.of(2000, 1, 1)));
+        for (int i = 0; i < documents.size(); i += 2) {
+            documents.get(i).setCustomer(customer);
+        }
+        documents = documentRepository.saveAll(documents);
+
+        List<Integer> found = new ArrayList<>();
+        String cursor = null;
+
+        do {
+            DocumentQuery query = DocumentQuery.builder()
+                    .setSort(DocumentService.DocumentSort.CUSTOMERLASTNAME)
+                    .setCursor(cursor, 4)
+                    .build();
+
+            CursorPage<DocumentView> page = service.findViewPage(query);
+            page.getContent().forEach(d -> found.add(d.getId()));
+            cursor = page.getNext();
+        } while (cursor != null);
+
+        List<Integer> expected = documents.stream()
+                .sorted(Comparator.comparing((Document d) -> d.getCustomer() == null)
+                        .thenComparing(Document::getId))
+                .map(Document::getId)
+                .collect(Collectors.toList());
+
+        assertEquals(expected, found);
+    }
+
+    /**
+     * The last value ends exactly at the end of a page, nulls start on the next page
+     */
+    @Test
+    public void testWalkPagesNullsAtPageBoundary() {
+        Person customer = personRepository.save(new Person("keyset", "keyset", "Keyset", "Keyset",
+                LocalDate.of(2000, 1, 1)));
+        for (int i = 0; i < 12; i++) {
+            documents.get(i).setCustomer(customer);
+        }
+        documents = documentRepository.saveAll(documents);
+
+        List<Integer> found = new ArrayList<>();
+        String cursor = null;
+
+        do {
+            DocumentQuery query = DocumentQuery.builder()
+                    .setSort(DocumentService.DocumentSort.CUSTOMERLASTNAME)
+                    .setCursor(cursor, 4)
+                    .build();
+
+            CursorPage<Document> page = service.findPage(query);
+            assertFalse(page.getContent().isEmpty());
+            page.getContent().forEach(d -> found.add(d.getId()));
+            cursor = page.getNext();
+        } while (cursor != null);
+
+        List<Integer> expected = documents.stream()
+                .sorted(Comparator.comparing((Document d) -> d.getCustomer() == null)
+                        .thenComparing(Document::getId))
+                .map(Document::getId)
+                .collect(Collectors.toList());
+
+        assertEquals(expected, found);
+    }
+
+    /**
+     * Page after a value seeks by range on sort field and reuses join of projection and sort
+     */
+    @Test
+    public void testCursorPredicateAndJoin() {
+        Person customer = personRepository.save(new Person("keyset", "keyset", "Keyset", "Keyset",
+                LocalDate.of(2000, 1, 1)));
+        documents.forEach(d -> d.setCustomer(customer));
+        documents = documentRepository.saveAll(documents);
+
+        CursorPage<Document> first = service.findPage(DocumentQuery.builder()
+                .setSort(DocumentService.DocumentSort.CUSTOMERLASTNAME)
+                .setCursor(null, 10)
+                .build());
+
+        SqlRecorder.clear();
+        service.findViewPage(DocumentQuery.builder()
+                .setSort(DocumentService.DocumentSort.CUSTOMERLASTNAME)
+                .setCursor(first.getNext(), 10)
+                .build());
+        String sql = SqlRecorder.getStatements().get(0);
+
+        assertEquals(sql, 1, sql.split("customer_id=").length - 1);
+        assertTrue(sql, sql.contains("person1_.last_name>=?and(person1_.last_name>?ordocument0_.id>"));
+        assertFalse(sql, sql.contains("isnull"));
+    }
+
+    /**
+     * Last page is not full, so it has no cursor
+     */
+    @Test
+    public void testLastPageHasNoCursor() {
+        CursorPage<Document> first = service.findPage(DocumentQuery.builder().setCursor(null, 20).build());
+        assertTrue(first.hasNext());
+
+        CursorPage<Document> second = service.findPage(DocumentQuery.builder().setCursor(first.getNext(), 20).build());
+        assertEquals(5, second.getContent().size());
+        assertFalse(second.hasNext());
+    }
+
+    /**
+     * Page size is limited by server
+     */
+    @Test
+    public void testMaxPageSize() {
+        DocumentQuery query = DocumentQuery.builder().setCursor(null, Integer.MAX_VALUE).build();
+
+        assertEquals(SearchQuery.MAX_PAGE_SIZE, query.getPageable().getPageSize());
+    }
+
+    /**
+     * Cursor cannot be used with another sort order
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testCursorWithAnotherSort() {
+        CursorPage<Document> first = service.findPage(DocumentQuery.builder().setCursor(null, 10).build());
+
+        DocumentQuery.builder()
+                .setSort(DocumentService.DocumentSort.TITLE)
+                .setCursor(first.getNext(), 10)
+                .build();
+    }
+}
@@ -1,33 +1,41 @@
 package olizarovich.probation.rest.test.services;
 
+import olizarovich.probation.rest.models.BatchResult;
 import olizarovich.probation.rest.models.Document;
 import olizarovich.probation.rest.models.Person;
 import olizarovich.probation.rest.models.Role;
+import olizarovich.probation.rest.queries.CursorPage;
+import olizarovich.probation.rest.queries.DocumentQuery;
 import olizarovich.probation.rest.repositories.DocumentRepository;
 import olizarovich.probation.rest.services.DocumentService;
 import olizarovich.probation.rest.services.implementation.DocumentServiceImplementation;
 import org.junit.Before;
 import org.junit.Test;
-import org.junit.jupiter.api.AfterEach;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.jpa.domain.Specification;
 
 import javax.print.Doc;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 
 @RunWith(MockitoJUnitRunner.class)
 public class DocumentServiceTest {
@@ -59,13 +67,13 @@ public class DocumentServiceTest {
         roleToInsert.setPersonId(1);
         roleToInsert.setRole("USER");
 
-        Page<Document> page = new PageImpl<Document>(documentTestData.stream().limit(2).collect(Collectors.toList()));
+        Slice<Document> page = new SliceImpl<Document>(documentTestData.stream().limit(2).collect(Collectors.toList()));
 
         Mockito.when(mockDocumentRepository.save(any()))
                 .thenReturn(documentToInsert);
         Mockito.when(mockDocumentRepository.findAll( any(Specification.class)))
                 .thenReturn(documentTestData);
-        Mockito.when(mockDocumentRepository.findAll( any(Specification.class), any(Pageable.class)))
+        Mockito.when(mockDocumentRepository.findSlice(any(), any(Pageable.class)))
                 .thenReturn(page);
         Mockito.when(mockDocumentRepository.findById(anyInt()))
                 .thenReturn(Optional.of(documentToInsert));
@@ -96,7 +104,7 @@ public class DocumentServiceTest {
         int pageSize = 2;
         List<Document> found = new ArrayList<>();
 
-        service.toPage(0, pageSize).forEach(found::add);
+        service.findAll(DocumentQuery.builder().setPage(0, pageSize).build()).forEach(found::add);
 
         assertEquals(pageSize, found.size());
     }
@@ -128,8 +136,117 @@ public class DocumentServiceTest {
         assertEquals(documentToInsert, found);
     }
 
-    @AfterEach
-    public void clearService(){
-        service.clearFilter();
+    /**
+     * Full text search keeps rank order of found ids and returns cursor if there are more results
+     */
+    @Test
+    public void searchServiceTest() {
+        List<DocumentRepository.SearchHit> hits = new ArrayList<>();
+        hits.add(hit(3, 0.9f));
+        hits.add(hit(1, 0.5f));
+        hits.add(hit(2, 0.1f));
+
+        Mockito.when(mockDocumentRepository.search("ready", 3))
+                .thenReturn(hits);
+        Mockito.when(mockDocumentRepository.findAllById(any()))
+                .thenReturn(documentTestData.subList(1, 4));
+
+        CursorPage<Document> page = service.search("ready", null, 2);
+
+        assertEquals(3, page.getContent().get(0).getId().intValue());
+        assertEquals(1, page.getContent().get(1).getId().intValue());
+        assertEquals(2, page.getContent().size());
+        assertTrue(page.hasNext());
+
+        Mockito.when(mockDocumentRepository.searchAfter(eq("ready"), eq(0.5f), eq(1), eq(3)))
+                .thenReturn(hits.subList(2, 3));
+
+        CursorPage<Document> next = service.search("ready", page.getNext(), 2);
+
+        assertEquals(2, next.getContent().get(0).getId().intValue());
+        assertFalse(next.hasNext());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void searchEmptyTextServiceTest() {
+        service.search(" ", null, 10);
+    }
+
+    /**
+     * Status of filtered documents is changed by one repository update, number of changed documents is returned
+     */
+    @Test
+    public void updateStatusServiceTest() {
+        Mockito.when(mockDocumentRepository.updateAll(any(), eq("status"), eq("Done"))).thenReturn(2);
+
+        assertEquals(2, service.updateStatus(DocumentQuery.builder().filterByStatus("Ready").build(), "Done"));
+    }
+
+    /**
+     * Update without filter is rejected, otherwise it would change every document
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void updateStatusWithoutFilterServiceTest() {
+        try {
+            service.updateStatus(DocumentQuery.builder().build(), "Done");
+        } finally {
+            Mockito.verify(mockDocumentRepository, Mockito.never()).updateAll(any(), anyString(), any());
+        }
+    }
+
+    /**
+     * Incorrect documents and documents of unknown persons should be skipped, others saved
+     */
+    @Test
+    public void saveBatchServiceTest() {
+        List<Document> batch = new ArrayList<>(documentTestData.subList(0, 3));
+        batch.forEach(i -> i.setId(null));
+        batch.add(1, invalidDocument);
+
+        Person unknown = DataInit.createPersonsData(1).get(0);
+        unknown.setId(42);
+        batch.get(3).setExecutor(unknown);
+
+        Mockito.when(mockDocumentRepository.findExistingPersonIds(anyCollection()))
+                .thenReturn(Collections.singletonList(0));
+        Mockito.when(mockDocumentRepository.saveInChunks(anyList(), anyInt()))
+                .thenAnswer(invocation -> {
+                    List<Document> documents = invocation.getArgument(0);
+                    for (int i = 0; i < documents.size(); i++) {
+                        documents.get(i).setId(100 + i);
+                    }
+                    return documents;
+                });
+
+        List<BatchResult> results = service.saveBatch(batch);
+
+        assertEquals(4, results.size());
+        assertEquals(Integer.valueOf(100), results.get(0).getId());
+        assertFalse(results.get(1).isSaved());
+        assertEquals(Integer.valueOf(101), results.get(2).getId());
+        assertFalse(results.get(3).isSaved());
+        assertEquals(3, results.get(3).getIndex());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void saveEmptyBatchServiceTest() {
+        service.saveBatch(Collections.emptyList());
+    }
+
+    /**
+     * Creates full text search result
+     */
+    private static DocumentRepository.SearchHit hit(int id, float rank) {
+        return new DocumentRepository.SearchHit() {
+            @Override
+            public Integer getId() {
+                return id;
+            }
+
+            @Override
+            public Float getRank() {
+                return rank;
+            }
+        };
     }
 }
@@ -1,26 +1,33 @@
 package olizarovich.probation.rest.test.services;
 
 import olizarovich.probation.rest.models.Person;
+import olizarovich.probation.rest.models.PersonView;
 import olizarovich.probation.rest.models.Role;
+import olizarovich.probation.rest.queries.PersonQuery;
 import olizarovich.probation.rest.repositories.PersonRepository;
 import olizarovich.probation.rest.repositories.RoleRepository;
+import olizarovich.probation.rest.security.UserDetailsCache;
 import olizarovich.probation.rest.services.PersonService;
 import olizarovich.probation.rest.services.implementation.PersonServiceImplementation;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
-import org.junit.jupiter.api.AfterEach;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
@@ -41,6 +48,8 @@ public class PersonServiceTest {
     @Mock
     private BCryptPasswordEncoder mockBCryptPasswordEncoder;
 
+    private UserDetailsCache userDetailsCache;
+
     private PersonService service;
     private Person personToInsert;
     private Person personToReturn;
@@ -51,8 +60,9 @@ public class PersonServiceTest {
 
     @Before
     public void setUp() {
+        userDetailsCache = new UserDetailsCache(100, Duration.ofMinutes(10));
         service = new PersonServiceImplementation(mockBCryptPasswordEncoder,
-                mockRoleRepository, mockPersonRepository);
+                mockRoleRepository, mockPersonRepository, userDetailsCache);
 
         personToInsert = new Person();
         personToInsert.setId(1);
@@ -78,13 +88,13 @@ public class PersonServiceTest {
 
         personsTestData = DataInit.createPersonsData(5);
 
-        Page<Person> page = new PageImpl<Person>(personsTestData.stream().limit(2).collect(Collectors.toList()));
+        Slice<Person> page = new SliceImpl<Person>(personsTestData.stream().limit(2).collect(Collectors.toList()));
 
         Mockito.when(mockPersonRepository.save(any()))
                 .thenReturn(personToInsert);
         Mockito.when(mockPersonRepository.findAll(any(Specification.class)))
                 .thenReturn(personsTestData);
-        Mockito.when(mockPersonRepository.findAll(any(Specification.class), any(Pageable.class)))
+        Mockito.when(mockPersonRepository.findSlice(any(), any(Pageable.class)))
                 .thenReturn(page);
         Mockito.when(mockPersonRepository.findById(anyInt()))
                 .thenReturn(Optional.of(personToInsert));
@@ -98,6 +108,14 @@ public class PersonServiceTest {
                 .thenReturn("password");
     }
 
+    /**
+     * Closes cache manager of the test cache
+     */
+    @After
+    public void tearDown() {
+        userDetailsCache.destroy();
+    }
+
     /**
      * Create data and loads it into database
      */
@@ -123,11 +141,36 @@ public class PersonServiceTest {
         int pageSize = 2;
         List<Person> found = new ArrayList<>();
 
-        service.toPage(0, pageSize).forEach(found::add);
+        service.findAll(PersonQuery.builder().setPage(0, pageSize).build()).forEach(found::add);
 
         assertEquals(pageSize, found.size());
     }
 
+    /**
+     * Roles of all persons on page should be added by one query
+     */
+    @Test
+    public void getViewPageServiceTest() {
+        List<PersonView> views = new ArrayList<>();
+        views.add(new PersonView(1, "Gustavo", "Gustavo", "Ponce", LocalDate.of(2000, 11, 11)));
+        views.add(new PersonView(2, "Gust", "Guso", "Pon", LocalDate.of(2000, 11, 11)));
+
+        List<Object[]> roles = new ArrayList<>();
+        roles.add(new Object[]{1, "ROLE_USER"});
+        roles.add(new Object[]{1, "ROLE_ADMIN"});
+
+        Mockito.when(mockPersonRepository.findSlice(any(), any(Pageable.class), eq(PersonView.projection)))
+                .thenReturn(new SliceImpl<>(views));
+        Mockito.when(mockRoleRepository.findRoleNames(anyCollection()))
+                .thenReturn(roles);
+
+        List<PersonView> found = service.findViewPage(PersonQuery.builder().setPage(0, 2).build()).getContent();
+
+        assertEquals(2, found.get(0).getRoles().size());
+        assertEquals(0, found.get(1).getRoles().size());
+        Mockito.verify(mockRoleRepository, Mockito.times(1)).findRoleNames(anyCollection());
+    }
+
     @Test
     public void getByIdServiceTest() {
         Person toFind = personToInsert;
@@ -155,8 +198,32 @@ public class PersonServiceTest {
         assertEquals(personToInsert, found);
     }
 
-    @AfterEach
-    public void clearService() {
-        service.clearFilter();
+    /**
+     * Second authentication should be answered by cache, update should evict cached user
+     */
+    @Test
+    public void loadUserByUsernameCacheServiceTest() {
+        personToInsert.setRoles(Collections.singleton(roleToInsert));
+        Mockito.when(mockPersonRepository.findByUsername(personToInsert.getUsername()))
+                .thenReturn(personToInsert);
+
+        service.loadUserByUsername(personToInsert.getUsername());
+        service.loadUserByUsername(personToInsert.getUsername());
+        Mockito.verify(mockPersonRepository, Mockito.times(1)).findByUsername(personToInsert.getUsername());
+
+        service.update(personToReturn, personToInsert.getId());
+        UserDetails second = service.loadUserByUsername(personToInsert.getUsername());
+        Mockito.verify(mockPersonRepository, Mockito.times(2)).findByUsername(personToInsert.getUsername());
+
+        assertEquals(1, second.getAuthorities().size());
+        assertEquals(personToInsert.getPassword(), second.getPassword());
+    }
+
+    /**
+     * Missing person should not be cached
+     */
+    @Test(expected = UsernameNotFoundException.class)
+    public void loadUnknownUserServiceTest() {
+        service.loadUserByUsername("unknown");
     }
 }
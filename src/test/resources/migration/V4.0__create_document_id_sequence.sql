@@ -0,0 +1,2 @@
+CREATE SEQUENCE documents_id_seq START WITH 1 INCREMENT BY 50;
+ALTER TABLE Documents ALTER COLUMN id SET DEFAULT NEXT VALUE FOR documents_id_seq;
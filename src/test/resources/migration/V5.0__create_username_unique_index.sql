@@ -0,0 +1,2 @@
+-- Username is unique for all persons, including soft deleted ones
+CREATE UNIQUE INDEX persons_username_unique_index ON persons (username);